@@ -0,0 +1,65 @@
+// ============================================
+// FILE: SessionRegistryBenchmark.java
+// Path: src/jmh/java/com/bapelauto/SessionRegistryBenchmark.java
+//
+// Heartbeat writes and the registry scan the heartbeat thread runs to
+// publish SessionManager's session view.
+// ============================================
+package com.bapelauto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionRegistryBenchmark {
+
+    private static final long TIMEOUT = 30_000L;
+
+    // Other instances sharing the file, so the scan has real entries to decode
+    @Param({"1", "8"})
+    public int sessions;
+
+    private Path file;
+    private SessionRegistry[] registries;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("bapelauto-registry", ".registry");
+        Files.delete(file); // Let the registry create and size it
+        long now = System.currentTimeMillis();
+        registries = new SessionRegistry[sessions];
+        for (int i = 0; i < sessions; i++) {
+            registries[i] = new SessionRegistry(file);
+            registries[i].register("session_" + now + "_" + i, 48213L + i, now - 3_600_000L, now);
+            registries[i].updateRealm("overworld");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (SessionRegistry registry : registries) {
+            registry.unregister();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void heartbeat() {
+        registries[0].heartbeat(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public List<SessionManager.SessionInfo> scan() {
+        return registries[0].scan(System.currentTimeMillis(), TIMEOUT);
+    }
+}
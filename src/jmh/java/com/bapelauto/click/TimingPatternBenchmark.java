@@ -0,0 +1,32 @@
+// ============================================
+// FILE: TimingPatternBenchmark.java
+// Path: src/jmh/java/com/bapelauto/click/TimingPatternBenchmark.java
+//
+// GuiClickManager.tick() computes the effective delay every tick while a
+// click sequence is active.
+// ============================================
+package com.bapelauto.click;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingPatternBenchmark {
+
+    @Param({"FIXED", "RANDOMIZED", "INCREASING", "DECREASING", "BURST"})
+    public TimingPattern pattern;
+
+    private int index;
+
+    @Benchmark
+    public long calculateDelay() {
+        int i = index++ & 63;
+        return pattern.calculateDelay(100, 50, 200, i, 5, 2000, i % 5);
+    }
+}
@@ -0,0 +1,77 @@
+// ============================================
+// FILE: RecipeFeederBenchmark.java
+// Path: src/jmh/java/com/bapelauto/slimefun/RecipeFeederBenchmark.java
+//
+// ItemMatcher runs against every scanned player-inventory slot on each
+// feeder pass. Real ItemStacks need the vanilla registries, so the trial
+// setup bootstraps them the same way vanilla's own test harness does.
+// ============================================
+package com.bapelauto.slimefun;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeFeederBenchmark {
+
+    private RecipeFeeder.ItemMatcher singleMatcher;
+    private RecipeFeeder.ItemMatcher multiMatcher;
+
+    /** A typical 36-slot player inventory: mostly filler, a few hits, some empties. */
+    private ItemStack[] inventory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        singleMatcher = new RecipeFeeder.ItemMatcher("coal", 1);
+        multiMatcher = new RecipeFeeder.ItemMatcher(
+            Arrays.asList("wheat", "carrot", "potato", "beetroot", "melon", "pumpkin"), 1);
+
+        inventory = new ItemStack[36];
+        for (int i = 0; i < inventory.length; i++) {
+            switch (i % 6) {
+                case 0 -> inventory[i] = new ItemStack(Items.COBBLESTONE, 64);
+                case 1 -> inventory[i] = new ItemStack(Items.DIRT, 32);
+                case 2 -> inventory[i] = new ItemStack(Items.COAL, 16);
+                case 3 -> inventory[i] = new ItemStack(Items.IRON_INGOT, 8);
+                case 4 -> inventory[i] = new ItemStack(Items.CARROT, 24);
+                default -> inventory[i] = ItemStack.EMPTY;
+            }
+        }
+    }
+
+    @Benchmark
+    public void matchesSingle(Blackhole bh) {
+        for (ItemStack stack : inventory) {
+            bh.consume(singleMatcher.matches(stack));
+        }
+    }
+
+    @Benchmark
+    public void matchesPartialSingle(Blackhole bh) {
+        for (ItemStack stack : inventory) {
+            bh.consume(singleMatcher.matchesPartial(stack));
+        }
+    }
+
+    @Benchmark
+    public void matchesPartialMulti(Blackhole bh) {
+        for (ItemStack stack : inventory) {
+            bh.consume(multiMatcher.matchesPartial(stack));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+// ============================================
+// FILE: SlimefunDetectorBenchmark.java
+// Path: src/jmh/java/com/bapelauto/slimefun/SlimefunDetectorBenchmark.java
+//
+// Title-based machine detection, run by SlimefunAutoManager's periodic
+// auto-detect and the smart-detect hotkey. The corpus mixes real Slimefun
+// machine titles with vanilla container titles, since misses walk every
+// contains() check before falling through.
+// ============================================
+package com.bapelauto.slimefun;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlimefunDetectorBenchmark {
+
+    private static final String[] TITLES = {
+        // Slimefun machines
+        "Enhanced Crafting Table",
+        "Magic Workbench",
+        "Armor Forge",
+        "Ore Crusher",
+        "Electric Furnace",
+        "Electric Ore Grinder",
+        "Electric Gold Pan",
+        "Electric Dust Washer",
+        "Electric Ingot Factory",
+        "Electrified Crucible",
+        "Carbon Press",
+        "Electric Smeltery",
+        "Food Fabricator",
+        "Freezer",
+        "Enhanced Auto-Crafter",
+        "Auto Crafter",
+        "Nuclear Reactor",
+        "Bio Reactor",
+        "Coal Generator",
+        "Cargo Input Node",
+        "GEO Miner",
+        "Android Interface",
+        // Vanilla containers (full miss path)
+        "Chest",
+        "Large Chest",
+        "Ender Chest",
+        "Barrel",
+        "Shulker Box",
+        "Furnace",
+        "Crafting",
+        "Hopper"
+    };
+
+    @Benchmark
+    public void detectMachineType(Blackhole bh) {
+        for (String title : TITLES) {
+            bh.consume(SlimefunDetector.detectMachineType(title));
+        }
+    }
+
+    @Benchmark
+    public void isSlimefunTitle(Blackhole bh) {
+        for (String title : TITLES) {
+            bh.consume(SlimefunDetector.isSlimefunTitle(title));
+        }
+    }
+}
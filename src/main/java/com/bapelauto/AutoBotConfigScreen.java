@@ -47,6 +47,7 @@ public class AutoBotConfigScreen extends Screen {
     private EditBox rightClickDelayField;
     private EditBox targetClickDelayField;
     private EditBox inventoryDelayField;
+    private EditBox macroNameField;
 
     private int currentTimingPatternIndex = 0;
     private final TimingPattern[] timingPatterns = TimingPattern.values();
@@ -217,6 +218,46 @@ public class AutoBotConfigScreen extends Screen {
             }
         ).bounds(cx + 0, startY, 150, 20).build());
 
+        startY += 25;
+
+        // Macro library: save the targets or recording under a name, load one back
+        macroNameField = new EditBox(
+            this.font, cx - 150, startY, 140, 20, Component.literal("Macro Name")
+        );
+        macroNameField.setHint(Component.literal("Macro name..."));
+        this.addRenderableWidget(macroNameField);
+
+        this.addRenderableWidget(Button.builder(
+            Component.literal("§aSave"),
+            b -> {
+                String name = macroNameField.getValue().trim();
+                if (!name.isEmpty() && this.minecraft != null) {
+                    AutoBotMod.getGuiClickManager().saveMacro(this.minecraft, name);
+                }
+            }
+        ).bounds(cx + 0, startY, 48, 20).build());
+
+        this.addRenderableWidget(Button.builder(
+            Component.literal("§eLoad"),
+            b -> {
+                String name = macroNameField.getValue().trim();
+                if (!name.isEmpty() && this.minecraft != null
+                        && AutoBotMod.getGuiClickManager().loadMacro(this.minecraft, name)) {
+                    this.clearWidgets();
+                    this.init();
+                }
+            }
+        ).bounds(cx + 51, startY, 48, 20).build());
+
+        this.addRenderableWidget(Button.builder(
+            Component.literal("§7List"),
+            b -> {
+                if (this.minecraft != null) {
+                    AutoBotMod.getGuiClickManager().showMacroList(this.minecraft);
+                }
+            }
+        ).bounds(cx + 102, startY, 48, 20).build());
+
         startY += 35;
 
         // ==========================================
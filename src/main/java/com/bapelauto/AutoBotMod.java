@@ -46,8 +46,10 @@ import com.bapelauto.util.ChatUtil;
 import com.bapelauto.util.Notify;
 
 import com.bapelauto.click.*;
+import com.bapelauto.command.CommandQueue;
 import com.bapelauto.world.WorldInteractionManager;
 import com.bapelauto.inventory.InventoryManager;
+import com.bapelauto.inventory.SlotIndex;
 import com.bapelauto.stats.StatsTracker;
 import com.bapelauto.realm.RealmTracker;
 import com.bapelauto.profile.ProfileManager;
@@ -63,6 +65,7 @@ import com.bapelauto.slimefun.SlimefunConfigScreen;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keymapping.v1.KeyMappingHelper;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.screen.v1.ScreenEvents;
 import net.fabricmc.fabric.api.client.screen.v1.ScreenKeyboardEvents;
 import net.minecraft.client.Minecraft;
@@ -140,6 +143,17 @@ public class AutoBotMod implements ClientModInitializer {
     private static long commandDelay = 60000;
     private static long lastCommandTime = Long.MAX_VALUE;
 
+    // Cross-instance bus: set on the bus thread, handled on the next tick
+    private static volatile boolean remoteEmergencyStop = false;
+    private static SharedTokenBucket commandBucket;
+    private static CommandQueue commandQueue;
+    // Shared by everything that clicks in containers
+    private static final ClickPacer clickPacer = new ClickPacer();
+    private static final ContainerModel containerModel = new ContainerModel(clickPacer);
+    private static final SlotIndex slotIndex = new SlotIndex();
+    private static final long STATS_BROADCAST_INTERVAL = 5000;
+    private long lastStatsBroadcast = 0;
+
     @Override
     public void onInitializeClient() {
         Log.info("[AutoBot] Starting initialization sequence...");
@@ -164,6 +178,17 @@ public class AutoBotMod implements ClientModInitializer {
             // 3. Load Configuration
             loadConfiguration();
 
+            sessionManager.getBus().subscribe(SessionBus.Type.EMERGENCY_STOP, m -> remoteEmergencyStop = true);
+
+            // Machine-wide command rate shared by every instance
+            commandBucket = new SharedTokenBucket(
+                configManager.getLong("fleetCommandInterval", 1000),
+                configManager.getInt("fleetCommandBurst", 5));
+            configManager.longKey("fleetCommandInterval", 1000).subscribe(v -> commandBucket.configure(v, configManager.getInt("fleetCommandBurst", 5)));
+            configManager.intKey("fleetCommandBurst", 5).subscribe(v -> commandBucket.configure(configManager.getLong("fleetCommandInterval", 1000), v));
+            ShardedConfigManager.LongKey serverCommandInterval = configManager.longKey("serverCommandInterval", 0);
+            commandQueue = new CommandQueue(commandBucket, serverCommandInterval::get);
+
             // NOTE: initializeDefaultHotkeys() removed from here to prevent GLFW crash
 
             Log.info("[AutoBot v" + VERSION + "] CORE MANAGERS READY");
@@ -202,27 +227,39 @@ public class AutoBotMod implements ClientModInitializer {
             worldManager.loadFromConfig(configManager);
             inventoryManager.loadFromConfig(configManager);
 
-            long baseDelay = configManager.getLong("targetClickDelay", 100);
-            guiClickManager.setBaseDelay(baseDelay);
-
-            try {
-                String patternStr = configManager.getString("timingPattern", "FIXED");
-                guiClickManager.setTimingPattern(TimingPattern.valueOf(patternStr));
-            } catch (Exception e) {
-                guiClickManager.setTimingPattern(TimingPattern.FIXED);
-            }
+            guiClickManager.loadFromConfig(configManager);
 
             visualOverlay.setEnabled(configManager.getBoolean("overlayEnabled", true));
             visualOverlay.setShowStats(configManager.getBoolean("overlayShowStats", true));
 
             slimefunManager.setSlimefunModeEnabled(configManager.getBoolean("slimefunModeEnabled", false));
             slimefunManager.setSafetyMode(configManager.getBoolean("slimefunSafetyMode", true));
+            clickPacer.setEnabled(configManager.getBoolean("adaptivePacing", true));
+
+            subscribeConfiguration();
 
         } catch (Exception e) {
             Log.error("[AutoBot] Config load error (non-fatal)", e);
         }
     }
 
+    // After the initial load, values follow the config through change events
+    // (profiles, presets, realm layers, external edits) - only changed keys
+    // are touched. The managers subscribe their own keys in loadFromConfig().
+    private void subscribeConfiguration() {
+        configManager.booleanKey("commandEnabled", false).subscribe(v -> commandEnabled = v);
+        configManager.booleanKey("showGuiButtons", true).subscribe(v -> showGuiButtons = v);
+        configManager.stringKey("command", "/sell all").subscribe(v -> command = v);
+        configManager.longKey("commandDelay", 60000).subscribe(v -> commandDelay = v);
+
+        configManager.booleanKey("overlayEnabled", true).subscribe(visualOverlay::setEnabled);
+        configManager.booleanKey("overlayShowStats", true).subscribe(visualOverlay::setShowStats);
+
+        configManager.booleanKey("slimefunModeEnabled", false).subscribe(slimefunManager::setSlimefunModeEnabled);
+        configManager.booleanKey("slimefunSafetyMode", true).subscribe(slimefunManager::setSafetyMode);
+        configManager.booleanKey("adaptivePacing", true).subscribe(clickPacer::setEnabled);
+    }
+
     private void registerKeybindings() {
         // Core
         toggleBotKey = KeyMappingHelper.registerKeyMapping(
@@ -258,6 +295,14 @@ public class AutoBotMod implements ClientModInitializer {
     private void registerEvents() {
         ClientTickEvents.END_CLIENT_TICK.register(this::handleTick);
 
+        // Realm tracking is driven by the login/respawn hooks; the tick is only
+        // an identity-compare fallback
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) ->
+            client.execute(() -> {
+                if (realmTracker != null) realmTracker.onDisconnect();
+                slotIndex.clear();
+            }));
+
         // Safe logic ticks
         ClientTickEvents.END_CLIENT_TICK.register(client -> { if (realmTracker != null) realmTracker.tick(client); });
         ClientTickEvents.END_CLIENT_TICK.register(client -> { if (scheduler != null) scheduler.tick(client); });
@@ -324,6 +369,20 @@ public class AutoBotMod implements ClientModInitializer {
         }
         wasConnected = client.player != null;
 
+        // Apply config changes made since the last tick, on this thread
+        if (configManager != null) configManager.dispatchChanges();
+
+        // Outbound commands go out here, at most a few per tick
+        if (commandQueue != null) commandQueue.tick(client);
+
+        if (remoteEmergencyStop) {
+            remoteEmergencyStop = false;
+            performEmergencyStop(client);
+            if (client.player != null) {
+                ChatUtil.displayClientMessage(client, Component.literal("§c[EMERGENCY] Triggered from another instance"), false);
+            }
+        }
+
         // LAZY INITIALIZATION - Fix for GLFW crash
         // Only register default hotkeys AFTER the game is running and the player exists
         if (!hotkeysInitialized && client.player != null) {
@@ -359,9 +418,27 @@ public class AutoBotMod implements ClientModInitializer {
             ChatUtil.displayClientMessage(client, Component.literal("§e[Overlay] " + status), true);
         }
 
-        if (emergencyStopKey.consumeClick()) performEmergencyStop(client);
+        if (emergencyStopKey.consumeClick()) {
+            performEmergencyStop(client);
+            // Stop every instance on this machine, not just this one
+            if (sessionManager != null) sessionManager.getBus().publish(SessionBus.Type.EMERGENCY_STOP);
+        }
 
         if (botRunning) executeBot(client);
+
+        broadcastStats();
+    }
+
+    private void broadcastStats() {
+        if (sessionManager == null || statsTracker == null) return;
+        long now = System.currentTimeMillis();
+        if (now - lastStatsBroadcast < STATS_BROADCAST_INTERVAL) return;
+        lastStatsBroadcast = now;
+
+        sessionManager.getBus().publish(SessionBus.Type.STATS,
+            String.valueOf(botRunning),
+            String.valueOf(statsTracker.getTotalCommands()),
+            statsTracker.getFormattedDuration());
     }
 
     private void toggleMaster(Minecraft client) {
@@ -404,7 +481,7 @@ public class AutoBotMod implements ClientModInitializer {
             if (guiClickManager != null) guiClickManager.tick(client);
 
             if (commandEnabled && !command.isEmpty() && (currentTime - lastCommandTime) >= commandDelay) {
-                sendCommand(client);
+                queueCommand();
                 lastCommandTime = currentTime;
             }
         }
@@ -413,7 +490,7 @@ public class AutoBotMod implements ClientModInitializer {
             if (worldManager != null) worldManager.tick(client);
 
             if (commandEnabled && !command.isEmpty() && (currentTime - lastCommandTime) >= commandDelay) {
-                sendCommand(client);
+                queueCommand();
                 lastCommandTime = currentTime;
             }
         }
@@ -426,18 +503,12 @@ public class AutoBotMod implements ClientModInitializer {
         }
     }
 
-    private void sendCommand(Minecraft client) {
-        if (client.player == null || command.trim().isEmpty()) return;
-        try {
-            if (command.startsWith("/")) {
-                client.player.connection.sendCommand(command.substring(1));
-            } else {
-                client.player.connection.sendChat(command);
-            }
+    // Periodic command is the least urgent traffic; counted when actually sent
+    private void queueCommand() {
+        if (commandQueue == null || command.trim().isEmpty()) return;
+        commandQueue.enqueue(command, CommandQueue.Priority.BACKGROUND, () -> {
             if (statsTracker != null) statsTracker.incrementCommands();
-        } catch (Exception e) {
-            // Ignore
-        }
+        });
     }
 
     private void performSmartDetect(Minecraft client) {
@@ -483,6 +554,7 @@ public class AutoBotMod implements ClientModInitializer {
         commandEnabled = false;
         if (scheduler != null) scheduler.setEnabled(false);
         if (slimefunManager != null) slimefunManager.setSlimefunModeEnabled(false);
+        if (commandQueue != null) commandQueue.clear();
 
         if (client.player != null) {
             ChatUtil.displayClientMessage(client, Component.literal("§c§l[EMERGENCY] ALL SYSTEMS DISABLED!"), true);
@@ -511,6 +583,7 @@ public class AutoBotMod implements ClientModInitializer {
 
         if (worldManager != null) worldManager.saveToConfig(configManager);
         if (inventoryManager != null) inventoryManager.saveToConfig(configManager);
+        if (guiClickManager != null) guiClickManager.saveToConfig(configManager);
 
         if (visualOverlay != null) {
             configManager.set("overlayEnabled", visualOverlay.isEnabled());
@@ -544,6 +617,10 @@ public class AutoBotMod implements ClientModInitializer {
     public static SessionManager getSessionManager() { return sessionManager; }
     public static ShardedConfigManager getConfigManager() { return configManager; }
     public static RealmTracker getRealmTracker() { return realmTracker; }
+    public static CommandQueue getCommandQueue() { return commandQueue; }
+    public static ClickPacer getClickPacer() { return clickPacer; }
+    public static ContainerModel getContainerModel() { return containerModel; }
+    public static SlotIndex getSlotIndex() { return slotIndex; }
     public static ProfileManager getProfileManager() { return profileManager; }
     public static VisualOverlay getVisualOverlay() { return visualOverlay; }
     public static Scheduler getScheduler() { return scheduler; }
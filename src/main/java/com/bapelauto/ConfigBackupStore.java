@@ -0,0 +1,203 @@
+// Path: src/main/java/com/bapelauto/ConfigBackupStore.java
+package com.bapelauto;
+
+import com.bapelauto.util.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Content-addressed backup store for one shard.
+ *
+ * Layout under the backup dir:
+ *   <shardId>/<sha256>.properties   - one file per distinct content
+ *   <shardId>.index                 - append-only "<timestamp> <sha256>" lines
+ *
+ * A backup whose content matches the newest entry is skipped, identical
+ * content is stored once, and retention/listing/restore work from the
+ * index alone - the backup directory is never listed.
+ */
+public final class ConfigBackupStore {
+
+    private static final int MAX_BACKUPS = 10;
+    // Rewrite the index once it carries this many dropped entries
+    private static final int COMPACT_THRESHOLD = MAX_BACKUPS * 2;
+
+    private final Path objectDir;
+    private final Path indexFile;
+
+    // Newest last; loaded lazily from the index on first use
+    private List<BackupEntry> entries;
+    private int indexLines;
+
+    ConfigBackupStore(Path backupDir, String shardId) {
+        this.objectDir = backupDir.resolve(shardId);
+        this.indexFile = backupDir.resolve(shardId + ".index");
+    }
+
+    /**
+     * Back up the given file's current content unless it is identical to
+     * the newest backup.
+     */
+    synchronized void backup(Path source) throws IOException {
+        if (!Files.exists(source)) return;
+        loadIndex();
+
+        byte[] content = Files.readAllBytes(source);
+        String hash = contentHash(content);
+
+        if (!entries.isEmpty() && entries.get(entries.size() - 1).hash.equals(hash)) {
+            return; // Unchanged since the last backup
+        }
+
+        Path object = objectPath(hash);
+        if (!Files.exists(object)) {
+            Files.createDirectories(objectDir);
+            Files.write(object, content);
+        }
+
+        BackupEntry entry = new BackupEntry(System.currentTimeMillis(), hash);
+        Files.write(indexFile, (entry.timestamp + " " + entry.hash + "\n").getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        entries.add(entry);
+        indexLines++;
+
+        if (entries.size() > MAX_BACKUPS) {
+            List<BackupEntry> dropped = new ArrayList<>(entries.subList(0, entries.size() - MAX_BACKUPS));
+            entries = new ArrayList<>(entries.subList(entries.size() - MAX_BACKUPS, entries.size()));
+            deleteUnreferenced(dropped);
+        }
+        if (indexLines >= COMPACT_THRESHOLD) {
+            compactIndex();
+        }
+    }
+
+    /**
+     * Retained backups, newest first
+     */
+    synchronized List<BackupEntry> list() {
+        try {
+            loadIndex();
+        } catch (IOException e) {
+            Log.error("[ShardedConfig] Failed to read backup index", e);
+            return Collections.emptyList();
+        }
+        List<BackupEntry> newestFirst = new ArrayList<>(entries);
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * Read a backup's properties by content hash
+     */
+    synchronized Properties read(String hash) throws IOException {
+        Path object = objectPath(hash);
+        if (!Files.exists(object)) {
+            throw new FileNotFoundException("No backup with hash " + hash);
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(object)) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    private void loadIndex() throws IOException {
+        if (entries != null) return;
+        entries = new ArrayList<>();
+        indexLines = 0;
+        if (!Files.exists(indexFile)) return;
+
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+            int space = line.indexOf(' ');
+            if (space <= 0) continue;
+            try {
+                entries.add(new BackupEntry(Long.parseLong(line.substring(0, space)), line.substring(space + 1).trim()));
+                indexLines++;
+            } catch (NumberFormatException e) {
+                // Torn last line from a crash mid-append - skip it
+            }
+        }
+        if (entries.size() > MAX_BACKUPS) {
+            entries = new ArrayList<>(entries.subList(entries.size() - MAX_BACKUPS, entries.size()));
+        }
+    }
+
+    private void deleteUnreferenced(List<BackupEntry> dropped) {
+        Set<String> live = new HashSet<>();
+        for (BackupEntry e : entries) live.add(e.hash);
+        for (BackupEntry e : dropped) {
+            if (live.add(e.hash)) { // Not referenced by a retained entry
+                try {
+                    Files.deleteIfExists(objectPath(e.hash));
+                } catch (IOException ex) {
+                    Log.warn("[ShardedConfig] Failed to delete old backup " + e.hash, ex);
+                }
+            }
+        }
+    }
+
+    private void compactIndex() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (BackupEntry e : entries) {
+            sb.append(e.timestamp).append(' ').append(e.hash).append('\n');
+        }
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Files.write(temp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        indexLines = entries.size();
+    }
+
+    private Path objectPath(String hash) {
+        return objectDir.resolve(hash + ".properties");
+    }
+
+    /**
+     * SHA-256 over the file with comment lines removed: Properties.store()
+     * stamps the current date as a comment, which would otherwise make
+     * every save look like new content.
+     */
+    static String contentHash(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i <= content.length; i++) {
+            if (i == content.length || content[i] == '\n') {
+                if (i > lineStart && content[lineStart] != '#' && content[lineStart] != '!') {
+                    digest.update(content, lineStart, i - lineStart);
+                    digest.update((byte) '\n');
+                }
+                lineStart = i + 1;
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static final class BackupEntry {
+        public final long timestamp;
+        public final String hash;
+
+        BackupEntry(long timestamp, String hash) {
+            this.timestamp = timestamp;
+            this.hash = hash;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Backup[%d, %s]", timestamp, hash.substring(0, Math.min(12, hash.length())));
+        }
+    }
+}
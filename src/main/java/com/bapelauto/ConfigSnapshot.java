@@ -0,0 +1,107 @@
+// Path: src/main/java/com/bapelauto/ConfigSnapshot.java
+package com.bapelauto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, pre-parsed view of the config at one point in time.
+ *
+ * Every value is parsed once when the snapshot is built, so reads are a
+ * single map lookup with no locking and no string parsing. Writers never
+ * modify a snapshot - they build a new one and ShardedConfigManager
+ * publishes it through a single volatile reference.
+ */
+public final class ConfigSnapshot {
+
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap(), 0);
+
+    private final Map<String, Entry> entries;
+    private final Map<String, String> raw;
+    private final long version;
+
+    private ConfigSnapshot(Map<String, String> values, long version) {
+        Map<String, Entry> parsed = new HashMap<>(values.size() * 2);
+        values.forEach((k, v) -> parsed.put(k, new Entry(v)));
+        this.entries = parsed;
+        this.raw = Collections.unmodifiableMap(new HashMap<>(values));
+        this.version = version;
+    }
+
+    static ConfigSnapshot of(Map<String, String> values, long version) {
+        return new ConfigSnapshot(values, version);
+    }
+
+    public String getString(String key, String defaultValue) {
+        Entry e = entries.get(key);
+        return e != null ? e.text : defaultValue;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Entry e = entries.get(key);
+        return e != null ? e.bool : defaultValue;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        Entry e = entries.get(key);
+        return e != null && e.isLong ? e.longValue : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        Entry e = entries.get(key);
+        return e != null && e.isInt ? e.intValue : defaultValue;
+    }
+
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Unmodifiable raw string view (for saving/display)
+     */
+    public Map<String, String> asMap() {
+        return raw;
+    }
+
+    public int size() {
+        return raw.size();
+    }
+
+    /**
+     * Per-manager build counter. Unique per snapshot, but not monotonic in
+     * what is published: switching back to a cached server/realm context
+     * republishes its older snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    // One key's value, parsed into every primitive form up front
+    private static final class Entry {
+        final String text;
+        final boolean bool;
+        final long longValue;
+        final boolean isLong;
+        final int intValue;
+        final boolean isInt;
+
+        Entry(String text) {
+            this.text = text;
+            this.bool = Boolean.parseBoolean(text);
+
+            long l = 0;
+            boolean okLong = false;
+            try {
+                l = Long.parseLong(text);
+                okLong = true;
+            } catch (NumberFormatException e) {
+                // Not numeric
+            }
+            this.longValue = l;
+            this.isLong = okLong;
+            this.isInt = okLong && l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE;
+            this.intValue = isInt ? (int) l : 0;
+        }
+    }
+}
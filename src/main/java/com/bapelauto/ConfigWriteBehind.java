@@ -0,0 +1,182 @@
+// Path: src/main/java/com/bapelauto/ConfigWriteBehind.java
+package com.bapelauto;
+
+import com.bapelauto.util.Log;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind persistence for ShardedConfigManager.
+ *
+ * Callers only mark keys dirty / request a save, which never blocks on disk.
+ * A single background thread waits for the first request's deadline, then
+ * hands every key that became dirty in the meantime to one write, so a
+ * burst of set()/saveConfig() calls costs a single atomic file write.
+ */
+final class ConfigWriteBehind {
+
+    private final Object monitor = new Object();
+    private final Object ioLock = new Object();
+    private final Consumer<Set<String>> writer;
+
+    // Guarded by monitor
+    private final Set<String> dirtyKeys = new HashSet<>();
+    private Set<String> writingKeys = Set.of(); // Drained, write not finished yet
+    private boolean pending = false;
+    private long deadline = 0;
+    private boolean running = false;
+
+    private Thread thread;
+
+    ConfigWriteBehind(Consumer<Set<String>> writer) {
+        this.writer = writer;
+    }
+
+    void start() {
+        synchronized (monitor) {
+            if (running) return;
+            running = true;
+        }
+        thread = new Thread(this::run, "ShardedConfig-Writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Record a changed key and make sure a write happens within delayMs
+     */
+    void markDirty(String key, long delayMs) {
+        synchronized (monitor) {
+            dirtyKeys.add(key);
+            schedule(delayMs);
+        }
+    }
+
+    /**
+     * Request a write within delayMs even if no key is dirty
+     */
+    void requestWrite(long delayMs) {
+        synchronized (monitor) {
+            schedule(delayMs);
+        }
+    }
+
+    // Callers must hold monitor. A later request never pushes an earlier
+    // deadline back, so a steady stream of set() calls can't starve the write.
+    private void schedule(long delayMs) {
+        long due = System.currentTimeMillis() + delayMs;
+        if (!pending || due < deadline) {
+            deadline = due;
+        }
+        pending = true;
+        monitor.notifyAll();
+    }
+
+    /**
+     * Keys changed in memory that aren't on disk yet, including those in a
+     * write still in progress
+     */
+    Set<String> getPendingKeys() {
+        synchronized (monitor) {
+            if (writingKeys.isEmpty()) return new HashSet<>(dirtyKeys);
+            Set<String> keys = new HashSet<>(writingKeys);
+            keys.addAll(dirtyKeys);
+            return keys;
+        }
+    }
+
+    boolean hasPendingWrite() {
+        synchronized (monitor) {
+            return pending;
+        }
+    }
+
+    /**
+     * Write anything pending right now on the calling thread, and wait for a
+     * write already in progress on the background thread to finish.
+     */
+    void flush() {
+        synchronized (ioLock) {
+            Set<String> keys = drain();
+            if (keys != null) {
+                write(keys);
+            }
+        }
+    }
+
+    /**
+     * Stop the background thread, then flush whatever is still pending
+     */
+    void shutdown() {
+        synchronized (monitor) {
+            running = false;
+            monitor.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (monitor) {
+                try {
+                    while (running) {
+                        if (pending) {
+                            long wait = deadline - System.currentTimeMillis();
+                            if (wait <= 0) break;
+                            monitor.wait(wait);
+                        } else {
+                            monitor.wait();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!running) return;
+            }
+
+            synchronized (ioLock) {
+                Set<String> keys = drain();
+                if (keys != null) {
+                    write(keys);
+                }
+            }
+        }
+    }
+
+    // Take ownership of the pending key set; null if nothing was requested
+    private Set<String> drain() {
+        synchronized (monitor) {
+            if (!pending) return null;
+            Set<String> keys = new HashSet<>(dirtyKeys);
+            dirtyKeys.clear();
+            pending = false;
+            writingKeys = keys;
+            return keys;
+        }
+    }
+
+    private void write(Set<String> keys) {
+        try {
+            writer.accept(keys);
+        } catch (Exception e) {
+            Log.error("[ShardedConfig] Background write failed, will retry", e);
+            synchronized (monitor) {
+                dirtyKeys.addAll(keys);
+                schedule(5000);
+            }
+        } finally {
+            synchronized (monitor) {
+                writingKeys = Set.of();
+            }
+        }
+    }
+}
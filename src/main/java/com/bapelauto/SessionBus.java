@@ -0,0 +1,479 @@
+// Path: src/main/java/com/bapelauto/SessionBus.java
+package com.bapelauto;
+
+import com.bapelauto.util.Log;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Local message bus between instances running on the same machine.
+ *
+ * Every instance listens on a Unix domain socket named after its session id
+ * and sends to the sessions in SessionManager's current view, so peers hear
+ * about config changes, realm joins, emergency stops and stats within
+ * milliseconds. Sends are queued and written by a dedicated thread; received
+ * messages are delivered on the receiver thread, so listeners that touch
+ * game state must hand off to the client tick.
+ *
+ * Socket writes are non-blocking with a short timeout, so one peer that has
+ * stopped reading can't hold up delivery to the others: a frame it doesn't
+ * take in time goes to its inbox file instead, and so does everything else
+ * for it for a few seconds.
+ *
+ * Where Unix domain sockets aren't available the bus falls back to
+ * per-session inbox files, polled on the session heartbeat.
+ *
+ * Frame: int length, then type byte, sender id, field count, and each field
+ * as a presence flag plus modified UTF-8 (DataOutput.writeUTF).
+ */
+public final class SessionBus {
+
+    private static final String IPC_DIR = "config/bapelauto/ipc";
+    private static final int MAX_FRAME = 64 * 1024;
+    private static final long WRITE_TIMEOUT_MS = 50;
+    private static final long STALLED_PEER_MS = 5000;
+
+    public enum Type { CONFIG_CHANGED, REALM_JOIN, EMERGENCY_STOP, STATS }
+
+    private final String sessionId;
+    private final Supplier<List<SessionManager.SessionInfo>> peers;
+    private final Path ipcDir;
+
+    private final Map<Type, List<Consumer<Message>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Message> lastStats = new ConcurrentHashMap<>();
+    private final BlockingQueue<Message> outbox = new LinkedBlockingQueue<>();
+
+    // Sender thread only
+    private final Map<String, SocketChannel> connections = new HashMap<>();
+    private final Map<String, Long> stalledUntil = new HashMap<>();
+    private Selector writeSelector;
+
+    private ServerSocketChannel server;
+    private Selector selector;
+    private Thread receiverThread;
+    private Thread senderThread;
+    private volatile boolean running;
+    private volatile boolean socketMode;
+
+    SessionBus(String sessionId, Supplier<List<SessionManager.SessionInfo>> peers) {
+        this.sessionId = sessionId;
+        this.peers = peers;
+        this.ipcDir = Paths.get(IPC_DIR);
+    }
+
+    void start() {
+        running = true;
+        try {
+            Files.createDirectories(ipcDir);
+        } catch (IOException e) {
+            Log.error("[SessionBus] Failed to create " + ipcDir, e);
+        }
+
+        try {
+            Path socket = socketPath(sessionId);
+            Files.deleteIfExists(socket);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socket));
+            server.configureBlocking(false);
+            selector = Selector.open();
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            socketMode = true;
+
+            receiverThread = new Thread(this::receiveLoop, "SessionManager-BusReceiver");
+            receiverThread.setDaemon(true);
+            receiverThread.start();
+        } catch (IOException | UnsupportedOperationException e) {
+            Log.warn("[SessionBus] Unix domain sockets unavailable, using inbox files: " + e.getMessage());
+            closeQuietly(server);
+            server = null;
+            socketMode = false;
+        }
+
+        senderThread = new Thread(this::sendLoop, "SessionManager-BusSender");
+        senderThread.setDaemon(true);
+        senderThread.start();
+
+        Log.info("[SessionBus] Started (" + (socketMode ? "socket" : "inbox file") + " mode)");
+    }
+
+    void stop() {
+        running = false;
+        if (senderThread != null) senderThread.interrupt();
+        if (selector != null) selector.wakeup();
+        if (receiverThread != null) {
+            try {
+                receiverThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeQuietly(selector);
+        closeQuietly(server);
+        try {
+            Files.deleteIfExists(socketPath(sessionId));
+            Files.deleteIfExists(inboxPath(sessionId));
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Queue a message for every other live session (never blocks)
+     */
+    public void publish(Type type, String... fields) {
+        if (!running) return;
+        outbox.offer(new Message(type, sessionId, fields));
+    }
+
+    public void subscribe(Type type, Consumer<Message> listener) {
+        listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Latest STATS message received from each peer, by session id
+     */
+    public Map<String, Message> getPeerStats() {
+        pruneDepartedStats();
+        return Collections.unmodifiableMap(lastStats);
+    }
+
+    public boolean isSocketMode() {
+        return socketMode;
+    }
+
+    /**
+     * Fallback path: called on the heartbeat thread, reads and clears this
+     * session's inbox file. Polled in socket mode too, since a peer without
+     * socket support can only reach us this way; usually one exists() check.
+     */
+    void pollInbox() {
+        if (!running) return;
+        pruneDepartedStats();
+        Path inbox = inboxPath(sessionId);
+        if (!Files.exists(inbox)) return;
+
+        // Senders append; take the file away first so nothing is lost between read and delete
+        Path taken = inbox.resolveSibling(inbox.getFileName() + ".read");
+        try {
+            Files.move(inbox, taken, StandardCopyOption.REPLACE_EXISTING);
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(taken));
+            Files.deleteIfExists(taken);
+            drainFrames(buf);
+        } catch (IOException e) {
+            // Moved while a sender had it open (Windows) - next heartbeat retries
+        }
+    }
+
+    /**
+     * Remove socket/inbox files left behind by sessions that are gone.
+     * Runs once at startup, not per message.
+     */
+    void sweepStaleEndpoints() {
+        Set<String> live = new HashSet<>();
+        for (SessionManager.SessionInfo info : peers.get()) live.add(info.sessionId);
+        live.add(sessionId);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(ipcDir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int dot = name.indexOf('.');
+                if (dot > 0 && !live.contains(name.substring(0, dot))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            Log.warn("[SessionBus] Failed to sweep " + ipcDir, e);
+        }
+    }
+
+    // ---- Sending (sender thread) ----
+
+    private void sendLoop() {
+        while (running) {
+            Message message;
+            try {
+                message = outbox.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            byte[] frame;
+            try {
+                frame = encode(message);
+            } catch (IOException e) {
+                Log.error("[SessionBus] Failed to encode " + message.type, e);
+                continue;
+            }
+
+            Set<String> live = new HashSet<>();
+            for (SessionManager.SessionInfo peer : peers.get()) {
+                if (peer.sessionId.equals(sessionId)) continue;
+                live.add(peer.sessionId);
+                deliver(peer.sessionId, frame);
+            }
+
+            // Drop connections to sessions that left
+            connections.entrySet().removeIf(e -> {
+                if (live.contains(e.getKey())) return false;
+                closeQuietly(e.getValue());
+                return true;
+            });
+            stalledUntil.keySet().retainAll(live);
+        }
+        for (SocketChannel channel : connections.values()) closeQuietly(channel);
+        connections.clear();
+        closeQuietly(writeSelector);
+    }
+
+    private void deliver(String peerId, byte[] frame) {
+        Long stalled = stalledUntil.get(peerId);
+        if (stalled != null) {
+            if (System.currentTimeMillis() < stalled) {
+                appendToInbox(peerId, frame);
+                return;
+            }
+            stalledUntil.remove(peerId);
+        }
+
+        // One reconnect attempt: a cached connection may have gone stale
+        for (int attempt = 0; attempt < 2; attempt++) {
+            SocketChannel channel = connections.get(peerId);
+            try {
+                if (channel == null) {
+                    Path socket = socketPath(peerId);
+                    if (!socketMode || !Files.exists(socket)) {
+                        appendToInbox(peerId, frame);
+                        return;
+                    }
+                    channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+                    channel.configureBlocking(false);
+                    connections.put(peerId, channel);
+                }
+                if (!writeWithTimeout(channel, ByteBuffer.wrap(frame))) {
+                    // Peer isn't reading. Closing discards any partial frame on its side.
+                    Log.warn("[SessionBus] " + peerId + " stopped reading, using its inbox file");
+                    closeQuietly(channel);
+                    connections.remove(peerId);
+                    stalledUntil.put(peerId, System.currentTimeMillis() + STALLED_PEER_MS);
+                    appendToInbox(peerId, frame);
+                }
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                closeQuietly(channel);
+                connections.remove(peerId);
+            }
+        }
+    }
+
+    // False if the peer didn't take the whole frame within WRITE_TIMEOUT_MS
+    private boolean writeWithTimeout(SocketChannel channel, ByteBuffer buf) throws IOException {
+        channel.write(buf);
+        if (!buf.hasRemaining()) return true;
+
+        if (writeSelector == null) writeSelector = Selector.open();
+        SelectionKey key = channel.register(writeSelector, SelectionKey.OP_WRITE);
+        try {
+            long deadline = System.currentTimeMillis() + WRITE_TIMEOUT_MS;
+            while (buf.hasRemaining()) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) return false;
+                writeSelector.select(wait);
+                writeSelector.selectedKeys().clear();
+                channel.write(buf);
+            }
+            return true;
+        } finally {
+            key.cancel();
+            writeSelector.selectNow(); // Deregister now, so the channel can be registered again
+        }
+    }
+
+    private void appendToInbox(String peerId, byte[] frame) {
+        try {
+            // Single write per frame, so concurrent appenders don't interleave
+            Files.write(inboxPath(peerId), frame,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            Log.warn("[SessionBus] Failed to write inbox for " + peerId, e);
+        }
+    }
+
+    // Stats from sessions no longer in the view
+    private void pruneDepartedStats() {
+        if (lastStats.isEmpty()) return;
+        Set<String> live = new HashSet<>();
+        for (SessionManager.SessionInfo info : peers.get()) live.add(info.sessionId);
+        lastStats.keySet().retainAll(live);
+    }
+
+    // ---- Receiving (receiver thread) ----
+
+    private void receiveLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) {
+                        SocketChannel client = server.accept();
+                        if (client != null) {
+                            client.configureBlocking(false);
+                            client.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(4096));
+                        }
+                    } else if (key.isReadable()) {
+                        readFrom(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) Log.error("[SessionBus] Receiver stopped", e);
+        }
+    }
+
+    private void readFrom(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buf = (ByteBuffer) key.attachment();
+        try {
+            if (channel.read(buf) < 0) {
+                key.cancel();
+                closeQuietly(channel);
+                return;
+            }
+            buf.flip();
+            drainFrames(buf);
+            buf.compact();
+
+            // Grow for a frame larger than the buffer
+            if (!buf.hasRemaining()) {
+                if (buf.capacity() >= MAX_FRAME + 4) {
+                    throw new IOException("Frame too large");
+                }
+                ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2);
+                buf.flip();
+                bigger.put(buf);
+                key.attach(bigger);
+            }
+        } catch (IOException e) {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    // Decode and dispatch every complete frame; leaves a partial one in place
+    private void drainFrames(ByteBuffer buf) throws IOException {
+        while (buf.remaining() >= 4) {
+            int length = buf.getInt(buf.position());
+            if (length <= 0 || length > MAX_FRAME) {
+                throw new IOException("Bad frame length " + length);
+            }
+            if (buf.remaining() < 4 + length) return;
+
+            buf.getInt();
+            byte[] body = new byte[length];
+            buf.get(body);
+            dispatch(decode(body));
+        }
+    }
+
+    private void dispatch(Message message) {
+        if (message.sender.equals(sessionId)) return;
+        if (message.type == Type.STATS) {
+            lastStats.put(message.sender, message);
+        }
+        for (Consumer<Message> listener : listeners.getOrDefault(message.type, Collections.emptyList())) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                Log.error("[SessionBus] Listener for " + message.type + " failed", e);
+            }
+        }
+    }
+
+    // ---- Wire format ----
+
+    static byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(message.type.ordinal());
+        out.writeUTF(message.sender);
+        out.writeShort(message.fields.length);
+        for (String field : message.fields) {
+            out.writeBoolean(field != null);
+            if (field != null) out.writeUTF(field);
+        }
+        out.flush();
+
+        ByteBuffer frame = ByteBuffer.allocate(4 + body.size());
+        frame.putInt(body.size());
+        frame.put(body.toByteArray());
+        return frame.array();
+    }
+
+    static Message decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int ordinal = in.readUnsignedByte();
+        Type[] types = Type.values();
+        if (ordinal >= types.length) throw new IOException("Unknown message type " + ordinal);
+        String sender = in.readUTF();
+        String[] fields = new String[in.readUnsignedShort()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = in.readBoolean() ? in.readUTF() : null;
+        }
+        return new Message(types[ordinal], sender, fields);
+    }
+
+    private Path socketPath(String id) {
+        return ipcDir.resolve(id + ".sock");
+    }
+
+    private Path inboxPath(String id) {
+        return ipcDir.resolve(id + ".inbox");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    public static final class Message {
+        public final Type type;
+        public final String sender;
+        private final String[] fields;
+
+        Message(Type type, String sender, String[] fields) {
+            this.type = type;
+            this.sender = sender;
+            this.fields = fields;
+        }
+
+        public String field(int index) {
+            return index < fields.length ? fields[index] : null;
+        }
+
+        public int fieldCount() {
+            return fields.length;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Message[%s from %s, %s]", type, sender, Arrays.toString(fields));
+        }
+    }
+}
@@ -13,6 +13,9 @@
 // ============================================
 package com.bapelauto;
 
+import com.bapelauto.click.ClickPacer;
+import com.bapelauto.click.ContainerModel;
+import com.bapelauto.command.CommandQueue;
 import com.bapelauto.util.ChatUtil;
 
 import net.minecraft.client.gui.GuiGraphicsExtractor;
@@ -23,6 +26,7 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Debug screen for monitoring active sessions and shard status
@@ -32,21 +36,17 @@ public class SessionDebugScreen extends Screen {
     private final SessionManager sessionManager;
     private final ShardedConfigManager configManager;
     
-    private List<SessionManager.SessionInfo> sessions;
-    private long lastRefresh = 0;
-    private static final long REFRESH_INTERVAL = 1000;
     
     public SessionDebugScreen(Screen parent) {
         super(Component.literal("Session Debug"));
         this.parent = parent;
         this.sessionManager = AutoBotMod.getSessionManager();
         this.configManager = AutoBotMod.getConfigManager();
-        refreshSessions();
     }
     
     private void refreshSessions() {
-        sessions = sessionManager.listActiveSessions();
-        lastRefresh = System.currentTimeMillis();
+        // Rescan happens on the heartbeat thread; the next frame shows it
+        sessionManager.requestRefresh();
     }
     
     @Override
@@ -87,10 +87,10 @@ public class SessionDebugScreen extends Screen {
         context.fillGradient(0, 0, this.width, this.height, 0xC0101010, 0xD0101010);
         super.extractRenderState(context, mouseX, mouseY, delta);
 
-        // Auto-refresh
-        if (System.currentTimeMillis() - lastRefresh > REFRESH_INTERVAL) {
-            refreshSessions();
-        }
+        // Latest view published by the heartbeat thread - a volatile read,
+        // never a registry scan on the render thread
+        List<SessionManager.SessionInfo> sessions = sessionManager.listActiveSessions();
+        Map<String, SessionBus.Message> peerStats = sessionManager.getBus().getPeerStats();
 
         int cx = this.width / 2;
         int y = 30;
@@ -153,8 +153,14 @@ public class SessionDebugScreen extends Screen {
                 // Alive status
                 String statusColor = session.isAlive() ? "§a" : "§c";
                 String statusText = session.isAlive() ? "ALIVE" : "STALE";
+                String botStatus = "";
+                SessionBus.Message stats = peerStats.get(session.sessionId);
+                if (stats != null) {
+                    botStatus = String.format(" | Bot: %s | Commands: %s | Session: %s",
+                        "true".equals(stats.field(0)) ? "§aON§7" : "§cOFF§7", stats.field(1), stats.field(2));
+                }
                 context.text(this.font,
-                    Component.literal("    Status: " + statusColor + statusText),
+                    Component.literal("    Status: " + statusColor + statusText + "§7" + botStatus),
                     cx - 190, y, 0xFF888888, true);
                 y += 18;
             }
@@ -181,6 +187,40 @@ public class SessionDebugScreen extends Screen {
             cx - 190, y, 0xFFAAAAAA, true);
         y += 12;
 
+        CommandQueue queue = AutoBotMod.getCommandQueue();
+        if (queue != null) {
+            context.text(this.font,
+                Component.literal(String.format("§7Command Queue: §f%d pending §7| sent %d | merged %d | dropped %d | latency avg %.0fms, max %dms",
+                    queue.getPendingCount(), queue.getSentCount(), queue.getMergedCount(), queue.getDroppedCount(),
+                    queue.getAverageLatencyMs(), queue.getMaxLatencyMs())),
+                cx - 190, y, 0xFFAAAAAA, true);
+            y += 12;
+        }
+
+        ClickPacer pacer = AutoBotMod.getClickPacer();
+        context.text(this.font,
+            Component.literal(pacer.isEnabled()
+                ? String.format("§7Click Pacing: §f%.2fx §7| rtt %.0fms | in flight %d | confirmed %d | corrected %d | resyncs %d",
+                    pacer.getRate(), pacer.getSmoothedLatencyMs(), pacer.getInFlight(),
+                    pacer.getAckCount(), pacer.getCorrectionCount(), pacer.getResyncCount())
+                : "§7Click Pacing: §cOFF"),
+            cx - 190, y, 0xFFAAAAAA, true);
+        y += 12;
+
+        ContainerModel model = AutoBotMod.getContainerModel();
+        context.text(this.font,
+            Component.literal(String.format("§7Predictions: §f%d pending §7| clicks %d | confirmed %d | server-changed %d | desyncs %d",
+                model.getPendingCount(), model.getClickCount(), model.getConfirmedCount(),
+                model.getServerChangeCount(), model.getDesyncCount())),
+            cx - 190, y, 0xFFAAAAAA, true);
+        y += 12;
+
+        boolean socketBus = sessionManager.getBus().isSocketMode();
+        context.text(this.font,
+            Component.literal("§7Instance Bus: " + (socketBus ? "§aSOCKET" : "§eINBOX FILES")),
+            cx - 190, y, 0xFFAAAAAA, true);
+        y += 12;
+
         boolean autoLoad = AutoBotMod.getRealmTracker().isEnableAutoLoad();
         boolean resetPerRealm = AutoBotMod.getRealmTracker().isEnableResetPerRealm();
 
@@ -194,7 +234,7 @@ public class SessionDebugScreen extends Screen {
             cx - 190, y, 0xFFAAAAAA, true);
 
         // Footer
-        drawCentered(context, Component.literal("§7Auto-refresh every 1 second"), cx, this.height - 60, 0xFF666666);
+        drawCentered(context, Component.literal("§7Updates every heartbeat"), cx, this.height - 60, 0xFF666666);
     }
 
     private void drawCentered(GuiGraphicsExtractor context, MutableComponent text, int centerX, int y, int argbColor) {
@@ -9,38 +9,58 @@ import java.nio.channels.FileLock;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
- * Manages session sharding and prevents conflicts between multiple Minecraft instances
+ * Manages session sharding and prevents conflicts between multiple Minecraft instances.
+ * Running instances are tracked in a shared memory-mapped {@link SessionRegistry}.
+ *
+ * Only the heartbeat thread scans the registry. It publishes the result as an
+ * immutable {@link SessionView}, so isOnlyActiveSession()/listActiveSessions()
+ * are a volatile read from any thread.
  */
 public class SessionManager {
     
-    private static final String SESSION_DIR = "config/bapelauto/sessions";
+    private static final String REGISTRY_FILE = "config/bapelauto/sessions.registry";
     private static final String LOCK_FILE = "config/bapelauto/.session.lock";
-    private static final String REGISTRY_FILE = "config/bapelauto/session_registry.json";
     private static final long SESSION_TIMEOUT = 30000; // 30 detik timeout
-    private static final long CLEANUP_INTERVAL = 5000; // 5 detik cleanup interval
+    private static final long HEARTBEAT_INTERVAL = 5000; // 5 detik heartbeat interval
+    // Realm writes wait this long for the realm to settle (portal hops, respawns)
+    private static final long REALM_WRITE_DEBOUNCE = 500;
     
     private final String sessionId;
-    private final Path sessionFile;
+    private final SessionRegistry registry;
     private final Path lockFile;
     private FileLock fileLock;
     private FileChannel lockChannel;
-    private Thread cleanupThread;
+    private Thread heartbeatThread;
     private volatile boolean running;
     
     // Session metadata
+    private final long pid;
     private long sessionStartTime;
-    private long lastHeartbeat;
-    private String realmName;
+    private volatile long lastHeartbeat;
+    private volatile String realmName;
     private Map<String, Object> sessionData;
     
+    // Published by the heartbeat thread (and once at startup)
+    private volatile SessionView view = SessionView.EMPTY;
+    private final List<Consumer<SessionView>> viewListeners = new CopyOnWriteArrayList<>();
+    private final Object heartbeatMonitor = new Object();
+    private boolean refreshRequested = false; // guarded by heartbeatMonitor
+    private long realmWriteDue = 0; // guarded by heartbeatMonitor; 0 = nothing pending
+    private String writtenRealm = null; // Heartbeat thread only
+    
+    private final SessionBus bus;
+    
     public SessionManager() {
         this.sessionId = generateSessionId();
-        this.sessionFile = Paths.get(SESSION_DIR, sessionId + ".session");
+        this.registry = new SessionRegistry(Paths.get(REGISTRY_FILE));
+        this.bus = new SessionBus(sessionId, () -> view.sessions);
         this.lockFile = Paths.get(LOCK_FILE);
         this.sessionData = new ConcurrentHashMap<>();
+        this.pid = ProcessHandle.current().pid();
         this.sessionStartTime = System.currentTimeMillis();
         this.lastHeartbeat = System.currentTimeMillis();
         
@@ -50,17 +70,19 @@ public class SessionManager {
     private void initialize() {
         try {
             // Create directories
-            Files.createDirectories(Paths.get(SESSION_DIR));
             Files.createDirectories(lockFile.getParent());
             
             // Acquire file lock
             acquireLock();
             
-            // Clean up stale sessions
-            cleanupStaleSessions();
-            
-            // Register this session
+            // Register this session (stale slots are reclaimed here)
             registerSession();
+            refreshView();
+            
+            // Local message bus to the other instances
+            bus.subscribe(SessionBus.Type.REALM_JOIN, m -> requestRefresh());
+            bus.start();
+            bus.sweepStaleEndpoints();
             
             // Start heartbeat thread
             startHeartbeat();
@@ -94,52 +116,43 @@ public class SessionManager {
         }
     }
     
-    private void registerSession() throws IOException {
-        SessionInfo info = new SessionInfo(
-            sessionId,
-            sessionStartTime,
-            lastHeartbeat,
-            ProcessHandle.current().pid(),
-            realmName
-        );
-        
-        Files.write(sessionFile, serializeSession(info));
-        updateRegistry();
-        
-        Log.info("[SessionManager] Session registered: " + sessionId);
-    }
-    
-    private void updateRegistry() throws IOException {
-        Path registryPath = Paths.get(REGISTRY_FILE);
-        List<SessionInfo> activeSessions = getActiveSessions();
-        
-        // Add current session
-        activeSessions.add(new SessionInfo(
-            sessionId,
-            sessionStartTime,
-            lastHeartbeat,
-            ProcessHandle.current().pid(),
-            realmName
-        ));
-        
-        // Write registry
-        String json = serializeRegistry(activeSessions);
-        Files.write(registryPath, json.getBytes());
+    private void registerSession() {
+        if (registry.register(sessionId, pid, sessionStartTime, lastHeartbeat)) {
+            Log.info("[SessionManager] Session registered: " + sessionId);
+        } else {
+            Log.warn("[SessionManager] Running without shared registry - other instances won't see this session");
+        }
     }
     
     private void startHeartbeat() {
         running = true;
-        cleanupThread = new Thread(() -> {
+        heartbeatThread = new Thread(() -> {
             while (running) {
                 try {
-                    Thread.sleep(CLEANUP_INTERVAL);
+                    boolean realmDue;
+                    synchronized (heartbeatMonitor) {
+                        if (!refreshRequested) {
+                            long wait = HEARTBEAT_INTERVAL;
+                            if (realmWriteDue != 0) {
+                                wait = Math.max(1, Math.min(wait, realmWriteDue - System.currentTimeMillis()));
+                            }
+                            heartbeatMonitor.wait(wait);
+                        }
+                        refreshRequested = false;
+                        realmDue = realmWriteDue != 0 && System.currentTimeMillis() >= realmWriteDue;
+                        if (realmDue) realmWriteDue = 0;
+                    }
                     
-                    // Update heartbeat
+                    if (realmDue) {
+                        writeRealm();
+                    }
+                    
+                    // In-place write into the mapped registry
                     lastHeartbeat = System.currentTimeMillis();
-                    updateSessionFile();
+                    registry.heartbeat(lastHeartbeat);
                     
-                    // Clean stale sessions
-                    cleanupStaleSessions();
+                    refreshView();
+                    bus.pollInbox();
                     
                 } catch (InterruptedException e) {
                     break;
@@ -148,107 +161,76 @@ public class SessionManager {
                 }
             }
         }, "SessionManager-Heartbeat");
-        cleanupThread.setDaemon(true);
-        cleanupThread.start();
+        heartbeatThread.setDaemon(true);
+        heartbeatThread.start();
     }
     
-    private void updateSessionFile() {
-        try {
-            SessionInfo info = new SessionInfo(
-                sessionId,
-                sessionStartTime,
-                lastHeartbeat,
-                ProcessHandle.current().pid(),
-                realmName
-            );
-            Files.write(sessionFile, serializeSession(info));
-        } catch (IOException e) {
-            Log.error("[SessionManager] Failed to update session file", e);
+    /**
+     * Rescan the registry and publish a new view. Listeners only hear about
+     * it when the set of sessions or their realms changed.
+     */
+    private void refreshView() {
+        List<SessionInfo> sessions;
+        if (registry.isRegistered()) {
+            sessions = registry.scan(System.currentTimeMillis(), SESSION_TIMEOUT);
+        } else {
+            // No shared registry - we only know about ourselves
+            sessions = new ArrayList<>();
+            sessions.add(new SessionInfo(sessionId, sessionStartTime, lastHeartbeat, pid, realmName));
         }
-    }
-    
-    private void cleanupStaleSessions() {
-        try {
-            Path sessionDir = Paths.get(SESSION_DIR);
-            if (!Files.exists(sessionDir)) return;
-            
-            long currentTime = System.currentTimeMillis();
-            
-            Files.list(sessionDir)
-                .filter(p -> p.toString().endsWith(".session"))
-                .forEach(sessionPath -> {
-                    try {
-                        SessionInfo info = deserializeSession(Files.readAllBytes(sessionPath));
-                        
-                        // Check if session is stale
-                        if (currentTime - info.lastHeartbeat > SESSION_TIMEOUT) {
-                            // Verify process is not running
-                            if (!isProcessAlive(info.pid)) {
-                                Files.deleteIfExists(sessionPath);
-                                Log.info("[SessionManager] Cleaned stale session: " + info.sessionId);
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Corrupted session file - delete it
-                        try {
-                            Files.deleteIfExists(sessionPath);
-                        } catch (IOException ex) {
-                            // Ignore
-                        }
-                    }
-                });
-            
-            updateRegistry();
-            
-        } catch (Exception e) {
-            Log.error("[SessionManager] Cleanup error", e);
+        
+        SessionView previous = view;
+        boolean changed = !previous.sameMembers(sessions);
+        SessionView next = new SessionView(sessions,
+            changed ? previous.version + 1 : previous.version,
+            System.currentTimeMillis());
+        view = next;
+        
+        if (changed) {
+            for (Consumer<SessionView> listener : viewListeners) {
+                try {
+                    listener.accept(next);
+                } catch (Exception e) {
+                    Log.error("[SessionManager] Session listener failed", e);
+                }
+            }
         }
     }
     
-    private boolean isProcessAlive(long pid) {
-        try {
-            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
-        } catch (Exception e) {
-            return false;
+    /**
+     * Ask the heartbeat thread to rescan now instead of at the next heartbeat
+     */
+    public void requestRefresh() {
+        synchronized (heartbeatMonitor) {
+            refreshRequested = true;
+            heartbeatMonitor.notifyAll();
         }
     }
     
-    private List<SessionInfo> getActiveSessions() {
-        List<SessionInfo> sessions = new ArrayList<>();
-        
-        try {
-            Path sessionDir = Paths.get(SESSION_DIR);
-            if (!Files.exists(sessionDir)) return sessions;
-            
-            long currentTime = System.currentTimeMillis();
-            
-            sessions = Files.list(sessionDir)
-                .filter(p -> p.toString().endsWith(".session"))
-                .map(path -> {
-                    try {
-                        SessionInfo info = deserializeSession(Files.readAllBytes(path));
-                        // Only return if not stale
-                        if (currentTime - info.lastHeartbeat <= SESSION_TIMEOUT) {
-                            return info;
-                        }
-                    } catch (Exception e) {
-                        // Skip corrupted files
-                    }
-                    return null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-                
-        } catch (Exception e) {
-            Log.error("[SessionManager] Failed to get active sessions", e);
+    /**
+     * Record the realm this instance is in (null when disconnected). Only
+     * remembers it; the heartbeat thread writes it to the registry and tells
+     * the other instances once it has been stable for REALM_WRITE_DEBOUNCE.
+     */
+    public void updateRealmName(String newRealmName) {
+        if (Objects.equals(realmName, newRealmName)) return;
+        this.realmName = newRealmName;
+        synchronized (heartbeatMonitor) {
+            realmWriteDue = System.currentTimeMillis() + REALM_WRITE_DEBOUNCE;
+            heartbeatMonitor.notifyAll(); // Re-arm the wait for the new deadline
         }
-        
-        return sessions;
     }
     
-    public void updateRealmName(String newRealmName) {
-        this.realmName = newRealmName;
-        updateSessionFile();
+    // Heartbeat thread
+    private void writeRealm() {
+        String realm = realmName;
+        if (Objects.equals(realm, writtenRealm)) return; // Changed and changed back
+        writtenRealm = realm;
+        registry.updateRealm(realm);
+        refreshView();
+        if (realm != null) {
+            bus.publish(SessionBus.Type.REALM_JOIN, realm);
+        }
     }
     
     public void setSessionData(String key, Object value) {
@@ -263,29 +245,52 @@ public class SessionManager {
         return sessionId;
     }
     
+    /**
+     * Message bus to the other instances on this machine
+     */
+    public SessionBus getBus() {
+        return bus;
+    }
+    
+    /**
+     * Latest published view of live sessions (never blocks or scans)
+     */
+    public SessionView getSessionView() {
+        return view;
+    }
+    
     public List<SessionInfo> listActiveSessions() {
-        return getActiveSessions();
+        return view.sessions;
     }
     
     public boolean isOnlyActiveSession() {
-        return getActiveSessions().size() == 1;
+        return view.sessions.size() <= 1;
+    }
+    
+    /**
+     * Called on the heartbeat thread whenever sessions join, leave or change
+     * realm. Listeners that touch game state must hand off to the client thread.
+     */
+    public void addSessionListener(Consumer<SessionView> listener) {
+        viewListeners.add(listener);
+    }
+    
+    public void removeSessionListener(Consumer<SessionView> listener) {
+        viewListeners.remove(listener);
     }
     
-    public void shutdown() {
+    public synchronized void shutdown() {
+        if (!running && !registry.isRegistered()) return; // Already shut down
         Log.info("[SessionManager] Shutting down session: " + sessionId);
         running = false;
         
-        if (cleanupThread != null) {
-            cleanupThread.interrupt();
+        if (heartbeatThread != null) {
+            heartbeatThread.interrupt();
         }
         
-        // Clean up session file
-        try {
-            Files.deleteIfExists(sessionFile);
-            updateRegistry();
-        } catch (IOException e) {
-            Log.error("[SessionManager] Failed to delete session file", e);
-        }
+        // Leave the bus, then free our registry slot
+        bus.stop();
+        registry.unregister();
         
         // Release lock
         try {
@@ -308,54 +313,34 @@ public class SessionManager {
         }, "SessionManager-Shutdown"));
     }
     
-    // Simple serialization (could use JSON library for production)
-    private byte[] serializeSession(SessionInfo info) {
-        String data = String.format("%s|%d|%d|%d|%s",
-            info.sessionId,
-            info.startTime,
-            info.lastHeartbeat,
-            info.pid,
-            info.realmName != null ? info.realmName : ""
-        );
-        return data.getBytes();
-    }
-    
-    private SessionInfo deserializeSession(byte[] data) {
-        String str = new String(data);
-        String[] parts = str.split("\\|");
+    /**
+     * Immutable list of live sessions as of one registry scan. The version
+     * only changes when membership or realms change, not on heartbeats.
+     */
+    public static final class SessionView {
+        static final SessionView EMPTY = new SessionView(Collections.emptyList(), 0, 0);
         
-        return new SessionInfo(
-            parts[0],
-            Long.parseLong(parts[1]),
-            Long.parseLong(parts[2]),
-            Long.parseLong(parts[3]),
-            parts.length > 4 ? parts[4] : null
-        );
-    }
-    
-    private String serializeRegistry(List<SessionInfo> sessions) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        sb.append("  \"sessions\": [\n");
+        public final List<SessionInfo> sessions;
+        public final long version;
+        public final long scannedAt;
         
-        for (int i = 0; i < sessions.size(); i++) {
-            SessionInfo s = sessions.get(i);
-            sb.append("    {\n");
-            sb.append("      \"id\": \"").append(s.sessionId).append("\",\n");
-            sb.append("      \"startTime\": ").append(s.startTime).append(",\n");
-            sb.append("      \"lastHeartbeat\": ").append(s.lastHeartbeat).append(",\n");
-            sb.append("      \"pid\": ").append(s.pid).append(",\n");
-            sb.append("      \"realm\": \"").append(s.realmName != null ? s.realmName : "").append("\"\n");
-            sb.append("    }");
-            if (i < sessions.size() - 1) sb.append(",");
-            sb.append("\n");
+        SessionView(List<SessionInfo> sessions, long version, long scannedAt) {
+            this.sessions = Collections.unmodifiableList(sessions);
+            this.version = version;
+            this.scannedAt = scannedAt;
         }
         
-        sb.append("  ],\n");
-        sb.append("  \"lastUpdate\": ").append(System.currentTimeMillis()).append("\n");
-        sb.append("}\n");
-        
-        return sb.toString();
+        boolean sameMembers(List<SessionInfo> other) {
+            if (other.size() != sessions.size()) return false;
+            for (int i = 0; i < other.size(); i++) {
+                SessionInfo a = sessions.get(i);
+                SessionInfo b = other.get(i);
+                if (!a.sessionId.equals(b.sessionId) || !Objects.equals(a.realmName, b.realmName)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
     
     // Inner class for session info
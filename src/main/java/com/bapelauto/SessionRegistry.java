@@ -0,0 +1,216 @@
+// Path: src/main/java/com/bapelauto/SessionRegistry.java
+package com.bapelauto;
+
+import com.bapelauto.util.Log;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared, memory-mapped registry of running instances.
+ *
+ * One small file of fixed-size slots replaces the per-session files: every
+ * instance maps it, claims a slot by taking an OS lock on that slot's byte
+ * range, and keeps the lock until it exits. A heartbeat is an in-place long
+ * write into the mapping and listing sessions is a scan of the buffer, so
+ * nothing is listed, read or rewritten on disk per heartbeat.
+ *
+ * The OS drops a crashed process's locks, so a slot whose lock can be taken
+ * is free by definition - stale entries are simply overwritten on claim.
+ *
+ * Layout (byte offsets):
+ *   header  [0, 64)   magic, layout version, slot count, slot size
+ *   slot i  [64 + i * 128, +128)
+ *     0  pid          8  start time     16 heartbeat
+ *     24 id length    26 id (46 bytes, UTF-8)
+ *     72 realm length 74 realm (54 bytes, UTF-8)
+ */
+final class SessionRegistry {
+
+    private static final int MAGIC = 0x42415052; // "BAPR"
+    private static final int LAYOUT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_COUNT = 64;
+    private static final int SLOT_SIZE = 128;
+    private static final int FILE_SIZE = HEADER_SIZE + SLOT_COUNT * SLOT_SIZE;
+
+    private static final int OFF_PID = 0;
+    private static final int OFF_START = 8;
+    private static final int OFF_HEARTBEAT = 16;
+    private static final int OFF_ID_LEN = 24;
+    private static final int OFF_ID = 26;
+    private static final int MAX_ID_BYTES = 46;
+    private static final int OFF_REALM_LEN = 72;
+    private static final int OFF_REALM = 74;
+    private static final int MAX_REALM_BYTES = 54;
+
+    private final Path file;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private FileLock slotLock;
+    private volatile int slotOffset = -1; // -1 = not registered (local-only fallback)
+
+    SessionRegistry(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Map the registry and claim a slot. Returns false if the registry is
+     * unusable or full; the caller then only knows about itself.
+     */
+    synchronized boolean register(String sessionId, long pid, long startTime, long heartbeat) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+            if (!initHeader()) {
+                close();
+                return false;
+            }
+
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                int offset = HEADER_SIZE + i * SLOT_SIZE;
+                FileLock lock;
+                try {
+                    lock = channel.tryLock(offset, SLOT_SIZE, false);
+                } catch (OverlappingFileLockException e) {
+                    continue; // Held by another registry in this JVM
+                }
+                if (lock == null) continue; // Held by a live process
+
+                slotLock = lock;
+                slotOffset = offset;
+                buffer.putLong(offset + OFF_PID, 0); // Invisible while being filled in
+                buffer.putLong(offset + OFF_START, startTime);
+                buffer.putLong(offset + OFF_HEARTBEAT, heartbeat);
+                putString(offset + OFF_ID_LEN, offset + OFF_ID, MAX_ID_BYTES, sessionId);
+                putString(offset + OFF_REALM_LEN, offset + OFF_REALM, MAX_REALM_BYTES, null);
+                buffer.putLong(offset + OFF_PID, pid);
+                return true;
+            }
+
+            Log.warn("[SessionManager] Session registry full (" + SLOT_COUNT + " slots)");
+            close();
+            return false;
+
+        } catch (IOException e) {
+            Log.error("[SessionManager] Failed to open session registry", e);
+            close();
+            return false;
+        }
+    }
+
+    // Write the header on first use; refuse a file with a different layout
+    private boolean initHeader() throws IOException {
+        try (FileLock ignored = channel.lock(0, HEADER_SIZE, false)) {
+            int magic = buffer.getInt(0);
+            if (magic == 0) {
+                buffer.putInt(4, LAYOUT_VERSION);
+                buffer.putInt(8, SLOT_COUNT);
+                buffer.putInt(12, SLOT_SIZE);
+                buffer.putInt(0, MAGIC);
+                return true;
+            }
+            if (magic != MAGIC || buffer.getInt(4) != LAYOUT_VERSION
+                    || buffer.getInt(8) != SLOT_COUNT || buffer.getInt(12) != SLOT_SIZE) {
+                Log.warn("[SessionManager] Unrecognised session registry layout in " + file);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    boolean isRegistered() {
+        return slotOffset >= 0;
+    }
+
+    /**
+     * In-place heartbeat write - no syscalls
+     */
+    synchronized void heartbeat(long timestamp) {
+        if (slotOffset < 0) return;
+        buffer.putLong(slotOffset + OFF_HEARTBEAT, timestamp);
+    }
+
+    synchronized void updateRealm(String realmName) {
+        if (slotOffset < 0) return;
+        putString(slotOffset + OFF_REALM_LEN, slotOffset + OFF_REALM, MAX_REALM_BYTES, realmName);
+    }
+
+    /**
+     * Scan every slot for a heartbeat newer than the timeout
+     */
+    synchronized List<SessionManager.SessionInfo> scan(long now, long timeout) {
+        List<SessionManager.SessionInfo> sessions = new ArrayList<>();
+        if (buffer == null) return sessions;
+
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            int offset = HEADER_SIZE + i * SLOT_SIZE;
+            long pid = buffer.getLong(offset + OFF_PID);
+            if (pid == 0) continue;
+            long heartbeat = buffer.getLong(offset + OFF_HEARTBEAT);
+            if (now - heartbeat > timeout) continue;
+
+            String id = getString(offset + OFF_ID_LEN, offset + OFF_ID, MAX_ID_BYTES);
+            String realm = getString(offset + OFF_REALM_LEN, offset + OFF_REALM, MAX_REALM_BYTES);
+            sessions.add(new SessionManager.SessionInfo(
+                id, buffer.getLong(offset + OFF_START), heartbeat, pid, realm.isEmpty() ? null : realm));
+        }
+        return sessions;
+    }
+
+    /**
+     * Clear our slot and release it
+     */
+    synchronized void unregister() {
+        if (slotOffset >= 0) {
+            buffer.putLong(slotOffset + OFF_PID, 0);
+            buffer.force();
+            slotOffset = -1;
+        }
+        close();
+    }
+
+    private void close() {
+        try {
+            if (slotLock != null) slotLock.release();
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            Log.error("[SessionManager] Failed to close session registry", e);
+        }
+        slotLock = null;
+        channel = null;
+        buffer = null;
+    }
+
+    // Strings are truncated to fit; the length is written last so a reader
+    // never sees a length longer than the bytes behind it
+    private void putString(int lenOffset, int dataOffset, int maxBytes, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, maxBytes);
+        buffer.putShort(lenOffset, (short) 0);
+        for (int i = 0; i < len; i++) {
+            buffer.put(dataOffset + i, bytes[i]);
+        }
+        buffer.putShort(lenOffset, (short) len);
+    }
+
+    private String getString(int lenOffset, int dataOffset, int maxBytes) {
+        int len = Math.max(0, Math.min(buffer.getShort(lenOffset), maxBytes));
+        byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            bytes[i] = buffer.get(dataOffset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+// Path: src/main/java/com/bapelauto/ShardWatcher.java
+package com.bapelauto;
+
+import com.bapelauto.util.Log;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Watches the shard directory for external edits to one shard file.
+ *
+ * Runs on its own daemon thread so the filesystem is never touched from
+ * config getters: when the watched file is created or modified the callback
+ * re-parses it on this thread and the manager swaps the result in.
+ */
+final class ShardWatcher {
+
+    // Editors and our own temp-file + move both fire several events per save
+    private static final long SETTLE_DELAY = 150;
+
+    private final Path directory;
+    private final Path fileName;
+    private final Runnable onChange;
+
+    private WatchService watchService;
+    private Thread thread;
+
+    ShardWatcher(Path watchedFile, Runnable onChange) {
+        this.directory = watchedFile.toAbsolutePath().getParent();
+        this.fileName = watchedFile.getFileName();
+        this.onChange = onChange;
+    }
+
+    void start() {
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            Log.warn("[ShardedConfig] File watching unavailable, external edits will need a manual reload", e);
+            watchService = null;
+            return;
+        }
+
+        thread = new Thread(this::run, "ShardedConfig-Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close(); // Unblocks take() with ClosedWatchServiceException
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean relevant = drainRelevant(key);
+
+                if (relevant) {
+                    // Let the burst of events from one save settle, then
+                    // swallow whatever else arrived for the same save
+                    Thread.sleep(SETTLE_DELAY);
+                    WatchKey more;
+                    while ((more = watchService.poll()) != null) {
+                        drainRelevant(more);
+                    }
+
+                    try {
+                        onChange.run();
+                    } catch (Exception e) {
+                        Log.error("[ShardedConfig] Reload after external change failed", e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private boolean drainRelevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || fileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
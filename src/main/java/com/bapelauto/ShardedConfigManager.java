@@ -7,35 +7,98 @@ import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 
 /**
- * Manages sharded configuration to prevent conflicts between multiple instances
+ * Manages sharded configuration to prevent conflicts between multiple instances.
+ *
+ * The live config is an immutable {@link ConfigSnapshot} behind one volatile
+ * reference: readers never lock or parse, writers build a new snapshot and
+ * swap it in under {@code writeLock}. Persisting is write-behind: set() and
+ * saveConfig() only schedule a write on {@link ConfigWriteBehind}'s thread,
+ * so disk I/O (backup, shard, global, session scan) never runs on the
+ * client thread. External edits to the shard are picked up by
+ * {@link ShardWatcher} and parsed off-thread, so getters never touch the
+ * filesystem.
+ *
+ * Values resolve through layers, later ones winning:
+ *   GLOBAL (defaults + bapelauto.properties) -> SERVER -> REALM -> SESSION (this shard)
+ * The resolved snapshot for each server/realm context is built once and
+ * cached, so a realm switch is a lookup plus a reference swap.
+ *
+ * Subsystems subscribe to the keys they care about and receive per-key
+ * change events from dispatchChanges(), which the client tick calls once
+ * per tick - see {@link ConfigChangeEvent}.
  */
 public class ShardedConfigManager {
     
     private static final String SHARD_DIR = "config/bapelauto/shards";
     private static final String GLOBAL_CONFIG = "config/bapelauto.properties";
     private static final String BACKUP_DIR = "config/bapelauto/backups";
+    private static final String LAYER_DIR = "config/bapelauto/layers";
+    
+    public enum Layer { GLOBAL, SERVER, REALM, SESSION }
     
     private final SessionManager sessionManager;
     private final String shardId;
     private final Path shardConfigPath;
     private final Path globalConfigPath;
     
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Map<String, String> configCache = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private long snapshotVersion = 0; // guarded by writeLock
+    
+    // Layer contents - all immutable maps, replaced (never mutated) under writeLock
+    private Map<String, String> globalLayer = Collections.emptyMap();
+    private Map<String, String> sessionLayer = Collections.emptyMap();
+    private final Map<Path, Map<String, String>> overrideLayers = new HashMap<>();
+    private final Map<String, ConfigSnapshot> resolvedByContext = new HashMap<>();
+    private volatile String activeServer = null; // null = no server/realm layers
+    private volatile String activeRealm = null;
+    
+    // Pending non-shard writes, guarded by writeLock
+    private final Set<Path> dirtyLayerFiles = new HashSet<>();
+    private boolean globalDirty = false;
+    
+    // Write-behind: a save request is written quickly, a bare set() waits a
+    // little longer so UI edits and profile loads coalesce into one write
+    private static final long SAVE_WRITE_DELAY = 250;
+    private static final long SET_WRITE_DELAY = 2000;
+    
+    private final ConfigWriteBehind writeBehind = new ConfigWriteBehind(this::writeShard);
+    // What the shard on disk holds as far as we know, so the writer can skip no-op saves
+    private volatile Map<String, String> lastWrittenValues = null;
+    // Content hashes of our shard writes the watcher hasn't seen yet, oldest
+    // first. Recorded before each move, so the watcher always recognises
+    // them; seeing one retires it and every older one.
+    private final Deque<String> ownShardWrites = new ArrayDeque<>();
+    private static final int MAX_OWN_SHARD_WRITES = 8;
     
-    private long lastLoadTime = 0;
-    private static final long RELOAD_INTERVAL = 5000; // 5 detik
+    private final ShardWatcher shardWatcher;
+    private final ConfigBackupStore backupStore;
+    
+    // Change listeners. Registration is thread-safe; dispatch happens only
+    // on the thread calling dispatchChanges() (the client thread)
+    private final Map<String, List<ConfigListener>> keyListeners = new ConcurrentHashMap<>();
+    private final List<ConfigListener> allKeyListeners = new CopyOnWriteArrayList<>();
+    private ConfigSnapshot lastDispatched;
     
     public ShardedConfigManager(SessionManager sessionManager) {
         this.sessionManager = sessionManager;
         this.shardId = sessionManager.getSessionId();
         this.shardConfigPath = Paths.get(SHARD_DIR, shardId + ".properties");
         this.globalConfigPath = Paths.get(GLOBAL_CONFIG);
+        this.shardWatcher = new ShardWatcher(shardConfigPath, this::reloadFromWatcher);
+        this.backupStore = new ConfigBackupStore(Paths.get(BACKUP_DIR), shardId);
         
         initialize();
+        sessionManager.getBus().subscribe(SessionBus.Type.CONFIG_CHANGED, this::applyRemoteChange);
+        // Whatever was loaded at startup is read directly by the managers;
+        // listeners only hear about changes from here on
+        this.lastDispatched = snapshot;
     }
     
     private void initialize() {
@@ -46,6 +109,8 @@ public class ShardedConfigManager {
             
             // Load initial config
             loadConfig();
+            writeBehind.start();
+            shardWatcher.start();
             
             Log.info("[ShardedConfig] Initialized shard: " + shardId);
             
@@ -55,107 +120,375 @@ public class ShardedConfigManager {
     }
     
     /**
-     * Load configuration with fallback strategy:
-     * 1. Try shard-specific config
-     * 2. Fall back to global config
-     * 3. Use defaults
+     * (Re)load every layer from disk:
+     * 1. Defaults, overlaid with the global config file
+     * 2. Shard-specific config as the session layer
+     * Server/realm layers are dropped and re-read on next use.
      */
     public void loadConfig() {
-        lock.writeLock().lock();
+        // Don't read the shard back from disk while our own newer values
+        // are still waiting to be written
+        if (writeBehind.hasPendingWrite()) {
+            writeBehind.flush();
+        }
+        
+        // Parse into fresh maps and swap once, so readers never observe a
+        // half-loaded (or cleared) config
+        Map<String, String> global = new HashMap<>();
+        Map<String, String> session = new HashMap<>();
+        boolean fromShard = false;
+        loadDefaults(global);
         try {
-            configCache.clear();
-            
-            // Try shard config first
+            if (Files.exists(globalConfigPath)) {
+                loadFromFile(globalConfigPath, global);
+                Log.info("[ShardedConfig] Loaded global config");
+            }
             if (Files.exists(shardConfigPath)) {
-                loadFromFile(shardConfigPath);
+                loadFromFile(shardConfigPath, session);
+                fromShard = true;
                 Log.info("[ShardedConfig] Loaded shard config: " + shardId);
             }
-            // Fall back to global
-            else if (Files.exists(globalConfigPath)) {
-                loadFromFile(globalConfigPath);
-                Log.info("[ShardedConfig] Loaded global config (no shard found)");
-            }
-            // Use defaults
-            else {
-                loadDefaults();
-                Log.info("[ShardedConfig] Loaded default config");
-            }
-            
-            lastLoadTime = System.currentTimeMillis();
-            
         } catch (Exception e) {
             Log.error("[ShardedConfig] Load failed", e);
-            loadDefaults();
-        } finally {
-            lock.writeLock().unlock();
+            global.clear();
+            loadDefaults(global);
+            session.clear();
+            fromShard = false;
+        }
+        
+        synchronized (writeLock) {
+            globalLayer = Collections.unmodifiableMap(global);
+            sessionLayer = Collections.unmodifiableMap(session);
+            overrideLayers.clear();
+            rebuildLocked();
+            if (fromShard) {
+                lastWrittenValues = sessionLayer; // Disk already matches
+            }
         }
     }
     
-    private void loadFromFile(Path path) throws IOException {
+    private void loadFromFile(Path path, Map<String, String> into) throws IOException {
         Properties props = new Properties();
         try (InputStream in = Files.newInputStream(path)) {
             props.load(in);
         }
         
-        // Copy to cache
         for (String key : props.stringPropertyNames()) {
-            configCache.put(key, props.getProperty(key));
+            into.put(key, props.getProperty(key));
+        }
+    }
+    
+    private void loadDefaults(Map<String, String> into) {
+        into.put("leftClickEnabled", "false");
+        into.put("rightClickEnabled", "false");
+        into.put("autoStealEnabled", "false");
+        into.put("autoStoreEnabled", "false");
+        into.put("commandEnabled", "false");
+        
+        into.put("leftClickDelay", "200");
+        into.put("rightClickDelay", "200");
+        into.put("targetClickDelay", "100");
+        into.put("inventoryDelay", "150");
+        into.put("adaptivePacing", "true"); // Scale click delays by server acknowledgements
+        into.put("commandDelay", "60000");
+        into.put("fleetCommandInterval", "1000"); // Shared by all instances on this machine
+        into.put("fleetCommandBurst", "5");
+        into.put("serverCommandInterval", "0"); // Extra per-server gap; override on the SERVER layer
+        
+        into.put("macroSpeed", "100"); // Replay speed in percent, 50-800
+        into.put("macroCompressWaits", "false");
+        into.put("macroWaitFloor", "50"); // Shortest gap when compressing
+        into.put("clickProgram", ""); // Name of a program in config/bapelauto/programs
+        into.put("activeMacro", ""); // Name of a saved macro in config/bapelauto/macros
+        into.put("macroOptimize", "true"); // Drop redundant packets from new recordings
+        into.put("macroMergeQuickMoves", "false"); // Also turn cross-inventory moves into QUICK_MOVE
+        into.put("macroKeepRecordings", "10"); // Newest automatic recordings kept, 0 = don't save
+        
+        into.put("command", "/sell all");
+        into.put("enableAutoLoad", "true");
+        into.put("enableResetPerRealm", "true");
+    }
+    
+    // Callers must hold writeLock
+    private void publish(ConfigSnapshot next) {
+        snapshot = next;
+    }
+    
+    // ---- Layer resolution (callers must hold writeLock) ----
+    
+    /**
+     * Layer contents changed: every cached resolution is stale
+     */
+    private void rebuildLocked() {
+        resolvedByContext.clear();
+        publish(resolveLocked(activeServer, activeRealm));
+    }
+    
+    private ConfigSnapshot resolveLocked(String server, String realm) {
+        String contextKey = server == null ? "" : server + '\u0000' + (realm == null ? "" : realm);
+        ConfigSnapshot cached = resolvedByContext.get(contextKey);
+        if (cached != null) return cached;
+        
+        Map<String, String> merged = new HashMap<>(globalLayer);
+        if (server != null) {
+            merged.putAll(overrideLayerLocked(serverLayerPath(server)));
+            if (realm != null) {
+                merged.putAll(overrideLayerLocked(realmLayerPath(server, realm)));
+            }
         }
+        merged.putAll(sessionLayer);
+        
+        ConfigSnapshot resolved = ConfigSnapshot.of(merged, ++snapshotVersion);
+        resolvedByContext.put(contextKey, resolved);
+        return resolved;
+    }
+    
+    // Server/realm override files are read once per path, on first use
+    private Map<String, String> overrideLayerLocked(Path path) {
+        return overrideLayers.computeIfAbsent(path, p -> {
+            Map<String, String> values = new HashMap<>();
+            if (Files.exists(p)) {
+                try {
+                    loadFromFile(p, values);
+                } catch (IOException e) {
+                    Log.error("[ShardedConfig] Failed to read layer " + p, e);
+                }
+            }
+            return Collections.unmodifiableMap(values);
+        });
+    }
+    
+    private static Path serverLayerPath(String server) {
+        return Paths.get(LAYER_DIR, "servers", safeName(server) + ".properties");
+    }
+    
+    private static Path realmLayerPath(String server, String realm) {
+        return Paths.get(LAYER_DIR, "realms", safeName(server), safeName(realm) + ".properties");
     }
     
-    private void loadDefaults() {
-        configCache.put("leftClickEnabled", "false");
-        configCache.put("rightClickEnabled", "false");
-        configCache.put("autoStealEnabled", "false");
-        configCache.put("autoStoreEnabled", "false");
-        configCache.put("commandEnabled", "false");
+    // Server addresses contain ':' and may be empty (singleplayer)
+    private static String safeName(String name) {
+        if (name == null || name.isEmpty()) return "local";
+        return name.toLowerCase().replaceAll("[^a-z0-9._-]", "_");
+    }
+    
+    /**
+     * Switch the server/realm layers in effect. The resolved snapshot for a
+     * context is cached, so switching back and forth costs no disk I/O or
+     * re-merge after the first visit.
+     */
+    public void setActiveContext(String server, String realm) {
+        String s = server == null ? "" : server;
+        synchronized (writeLock) {
+            if (s.equals(activeServer) && Objects.equals(realm, activeRealm)) return;
+            activeServer = s;
+            activeRealm = realm;
+            publish(resolveLocked(activeServer, activeRealm));
+        }
+        Log.info("[ShardedConfig] Active layers: server=" + safeName(s) + ", realm=" + realm);
+    }
+    
+    /**
+     * Drop the server/realm layers (e.g. on disconnect)
+     */
+    public void clearActiveContext() {
+        synchronized (writeLock) {
+            if (activeServer == null) return;
+            activeServer = null;
+            activeRealm = null;
+            publish(resolveLocked(null, null));
+        }
+    }
+    
+    public String getActiveServer() { return activeServer; }
+    public String getActiveRealm() { return activeRealm; }
+    
+    /**
+     * Raw contents of one layer for the active context (for display/debug)
+     */
+    public Map<String, String> getLayer(Layer layer) {
+        synchronized (writeLock) {
+            switch (layer) {
+                case GLOBAL: return globalLayer;
+                case SESSION: return sessionLayer;
+                case SERVER:
+                    return activeServer == null ? Collections.emptyMap()
+                        : overrideLayerLocked(serverLayerPath(activeServer));
+                case REALM:
+                    return activeServer == null || activeRealm == null ? Collections.emptyMap()
+                        : overrideLayerLocked(realmLayerPath(activeServer, activeRealm));
+                default:
+                    return Collections.emptyMap();
+            }
+        }
+    }
+    
+    /**
+     * Set a value on a specific layer. SERVER/REALM need an active context
+     * and are persisted to that context's override file. A null value
+     * removes the key from the layer.
+     */
+    public boolean set(Layer layer, String key, String value) {
+        if (layer == Layer.SESSION) {
+            set(key, value);
+            return true;
+        }
+        
+        String server;
+        String realm;
+        synchronized (writeLock) {
+            server = activeServer;
+            realm = activeRealm;
+            if (layer != Layer.GLOBAL && (server == null || (layer == Layer.REALM && realm == null))) {
+                Log.warn("[ShardedConfig] No active " + layer.name().toLowerCase() + " to set " + key + " on");
+                return false;
+            }
+            Path path = applyToLayerLocked(layer, server, realm, key, value);
+            if (path == null) {
+                globalDirty = true;
+            } else {
+                dirtyLayerFiles.add(path);
+            }
+            rebuildLocked();
+        }
+        writeBehind.markDirty(key, SET_WRITE_DELAY);
         
-        configCache.put("leftClickDelay", "200");
-        configCache.put("rightClickDelay", "200");
-        configCache.put("targetClickDelay", "100");
-        configCache.put("inventoryDelay", "150");
-        configCache.put("commandDelay", "60000");
+        // Shared layers: tell the other instances now rather than when they next load the file
+        sessionManager.getBus().publish(SessionBus.Type.CONFIG_CHANGED,
+            layer.name(), server, realm, key, value);
+        return true;
+    }
+    
+    // Returns the override file changed, or null for the global layer
+    private Path applyToLayerLocked(Layer layer, String server, String realm, String key, String value) {
+        if (layer == Layer.GLOBAL) {
+            globalLayer = withValue(globalLayer, key, value);
+            return null;
+        }
+        Path path = layer == Layer.SERVER ? serverLayerPath(server) : realmLayerPath(server, realm);
+        overrideLayers.put(path, withValue(overrideLayerLocked(path), key, value));
+        return path;
+    }
+    
+    /**
+     * A peer changed a shared layer. Applied in memory only - the sender
+     * persists it - and picked up by our listeners on the next dispatch.
+     */
+    private void applyRemoteChange(SessionBus.Message message) {
+        Layer layer;
+        try {
+            layer = Layer.valueOf(message.field(0));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return;
+        }
+        String server = message.field(1);
+        String realm = message.field(2);
+        String key = message.field(3);
+        if (layer == Layer.SESSION || key == null) return;
+        if (layer != Layer.GLOBAL && (server == null || (layer == Layer.REALM && realm == null))) return;
         
-        configCache.put("command", "/sell all");
-        configCache.put("enableAutoLoad", "true");
-        configCache.put("enableResetPerRealm", "true");
+        synchronized (writeLock) {
+            applyToLayerLocked(layer, server, realm, key, message.field(4));
+            rebuildLocked();
+        }
+    }
+    
+    private static Map<String, String> withValue(Map<String, String> base, String key, String value) {
+        Map<String, String> copy = new HashMap<>(base);
+        if (value == null) {
+            copy.remove(key);
+        } else {
+            copy.put(key, value);
+        }
+        return Collections.unmodifiableMap(copy);
     }
     
     /**
-     * Save config to shard-specific file
+     * Save config to shard-specific file (asynchronously - see flush())
      */
     public void saveConfig() {
-        lock.readLock().lock();
+        writeBehind.requestWrite(SAVE_WRITE_DELAY);
+    }
+    
+    /**
+     * Block until every pending change is on disk
+     */
+    public void flush() {
+        writeBehind.flush();
+    }
+    
+    /**
+     * Runs on the writer thread (or the caller of flush()). Everything that
+     * changed since the last write goes out in this one call.
+     */
+    private void writeShard(Set<String> dirtyKeys) {
+        Map<String, String> session;
+        Map<Path, Map<String, String>> layerWrites = new HashMap<>();
+        boolean writeGlobal;
+        synchronized (writeLock) {
+            session = sessionLayer;
+            for (Path path : dirtyLayerFiles) {
+                layerWrites.put(path, overrideLayers.getOrDefault(path, Collections.emptyMap()));
+            }
+            dirtyLayerFiles.clear();
+            writeGlobal = globalDirty;
+            globalDirty = false;
+        }
+        
         try {
-            // Backup existing config
-            if (Files.exists(shardConfigPath)) {
-                backupConfig();
+            for (Map.Entry<Path, Map<String, String>> layer : layerWrites.entrySet()) {
+                Properties props = new Properties();
+                layer.getValue().forEach(props::setProperty);
+                Files.createDirectories(layer.getKey().getParent());
+                writePropertiesAtomically(layer.getKey(), props, "AutoBot Layer Config");
             }
             
-            // Save to shard file
-            Properties props = new Properties();
-            configCache.forEach(props::setProperty);
-
-            writePropertiesAtomically(shardConfigPath, props, "AutoBot Shard Config - Session: " + shardId);
-
-            Log.info("[ShardedConfig] Saved shard config: " + shardId);
+            boolean sessionChanged = !session.equals(lastWrittenValues) || !Files.exists(shardConfigPath);
+            if (sessionChanged) {
+                // Backup existing config
+                if (Files.exists(shardConfigPath)) {
+                    backupConfig();
+                }
+                
+                // Save to shard file
+                Properties props = new Properties();
+                session.forEach(props::setProperty);
+                byte[] content = storeProperties(props, "AutoBot Shard Config - Session: " + shardId);
+                
+                // Recorded before the move so the watcher never sees the new
+                // file without knowing it is ours
+                recordOwnShardWrite(ConfigBackupStore.contentHash(content));
+                lastWrittenValues = session;
+                writeAtomically(shardConfigPath, content);
+                
+                Log.info("[ShardedConfig] Saved shard config: " + shardId + " (" + dirtyKeys.size() + " changed keys)");
+            }
             
             // Also update global config if this is the only session
-            if (sessionManager.isOnlyActiveSession()) {
+            if (writeGlobal || (sessionChanged && sessionManager.isOnlyActiveSession())) {
                 saveToGlobal();
             }
             
-        } catch (Exception e) {
-            Log.error("[ShardedConfig] Save failed", e);
-        } finally {
-            lock.readLock().unlock();
+        } catch (IOException e) {
+            synchronized (writeLock) {
+                dirtyLayerFiles.addAll(layerWrites.keySet());
+                globalDirty |= writeGlobal;
+            }
+            throw new UncheckedIOException(e);
         }
     }
     
+    /**
+     * Global file = global layer with this session's values on top; server
+     * and realm overrides stay in their own files.
+     */
     private void saveToGlobal() {
         try {
             Properties props = new Properties();
-            configCache.forEach(props::setProperty);
+            synchronized (writeLock) {
+                globalLayer.forEach(props::setProperty);
+                sessionLayer.forEach(props::setProperty);
+            }
 
             writePropertiesAtomically(globalConfigPath, props, "AutoBot Global Config");
 
@@ -172,11 +505,18 @@ public class ShardedConfigManager {
      * half-written config file behind.
      */
     private void writePropertiesAtomically(Path target, Properties props, String comment) throws IOException {
+        writeAtomically(target, storeProperties(props, comment));
+    }
+    
+    private static byte[] storeProperties(Properties props, String comment) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        props.store(out, comment);
+        return out.toByteArray();
+    }
+    
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
         Path tempFile = target.resolveSibling(target.getFileName().toString() + ".tmp");
-        try (OutputStream out = Files.newOutputStream(tempFile,
-                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
-            props.store(out, comment);
-        }
+        Files.write(tempFile, content);
         try {
             Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         } catch (AtomicMoveNotSupportedException e) {
@@ -186,77 +526,104 @@ public class ShardedConfigManager {
     
     private void backupConfig() {
         try {
-            String timestamp = String.format("%d", System.currentTimeMillis());
-            Path backupPath = Paths.get(BACKUP_DIR, shardId + "_" + timestamp + ".properties");
-            Files.copy(shardConfigPath, backupPath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Keep only last 10 backups
-            cleanupOldBackups();
-            
+            backupStore.backup(shardConfigPath);
         } catch (Exception e) {
             Log.error("[ShardedConfig] Backup failed", e);
         }
     }
     
-    private void cleanupOldBackups() throws IOException {
-        List<Path> backups = new ArrayList<>();
-        
-        try (var stream = Files.list(Paths.get(BACKUP_DIR))) {
-            stream.filter(p -> p.toString().contains(shardId))
-                  .forEach(backups::add);
-        }
-        
-        // Sort by timestamp (newest first)
-        backups.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
-        
-        // Delete old backups (keep 10 most recent)
-        for (int i = 10; i < backups.size(); i++) {
-            Files.deleteIfExists(backups.get(i));
+    /**
+     * Retained backups of this shard, newest first (read from the index only)
+     */
+    public List<ConfigBackupStore.BackupEntry> listBackups() {
+        return backupStore.list();
+    }
+    
+    /**
+     * Replace the session layer with a backup and schedule a save
+     */
+    public boolean restoreBackup(ConfigBackupStore.BackupEntry entry) {
+        try {
+            Properties props = backupStore.read(entry.hash);
+            Map<String, String> restored = new HashMap<>();
+            for (String key : props.stringPropertyNames()) {
+                restored.put(key, props.getProperty(key));
+            }
+            synchronized (writeLock) {
+                sessionLayer = Collections.unmodifiableMap(restored);
+                rebuildLocked();
+            }
+            saveConfig();
+            Log.info("[ShardedConfig] Restored backup " + entry);
+            return true;
+        } catch (Exception e) {
+            Log.error("[ShardedConfig] Restore failed", e);
+            return false;
         }
     }
     
+    /**
+     * Current immutable config snapshot
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
     /**
      * Get config value with type safety
      */
     public String getString(String key, String defaultValue) {
-        maybeReload();
-        lock.readLock().lock();
-        try {
-            return configCache.getOrDefault(key, defaultValue);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return snapshot.getString(key, defaultValue);
     }
     
     public boolean getBoolean(String key, boolean defaultValue) {
-        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+        return snapshot.getBoolean(key, defaultValue);
     }
     
     public long getLong(String key, long defaultValue) {
-        try {
-            return Long.parseLong(getString(key, String.valueOf(defaultValue)));
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        return snapshot.getLong(key, defaultValue);
     }
     
     public int getInt(String key, int defaultValue) {
-        try {
-            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+        return snapshot.getInt(key, defaultValue);
     }
     
     /**
-     * Set config value
+     * Set config value on the session layer. Writing back a value that
+     * already resolves the same is a no-op, so re-saving unchanged settings
+     * doesn't pin them over server/realm overrides.
      */
     public void set(String key, String value) {
-        lock.writeLock().lock();
-        try {
-            configCache.put(key, value);
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (writeLock) {
+            if (Objects.equals(snapshot.asMap().get(key), value)) return;
+            sessionLayer = withValue(sessionLayer, key, value);
+            rebuildLocked();
+        }
+        writeBehind.markDirty(key, SET_WRITE_DELAY);
+    }
+    
+    /**
+     * Set several session values in a single snapshot swap
+     */
+    public void setAll(Map<String, String> values) {
+        if (values.isEmpty()) return;
+        List<String> changed = new ArrayList<>();
+        synchronized (writeLock) {
+            // Same rule as set(): a full resolved map (a saved profile) only
+            // pins the keys that actually differ
+            Map<String, String> resolved = snapshot.asMap();
+            Map<String, String> copy = new HashMap<>(sessionLayer);
+            for (Map.Entry<String, String> e : values.entrySet()) {
+                if (Objects.equals(resolved.get(e.getKey()), e.getValue())) continue;
+                copy.put(e.getKey(), e.getValue());
+                changed.add(e.getKey());
+            }
+            if (changed.isEmpty()) return;
+            sessionLayer = Collections.unmodifiableMap(copy);
+            rebuildLocked();
+        }
+        for (String key : changed) {
+            writeBehind.markDirty(key, SET_WRITE_DELAY);
         }
     }
     
@@ -272,30 +639,84 @@ public class ShardedConfigManager {
         set(key, String.valueOf(value));
     }
     
+    private void recordOwnShardWrite(String hash) {
+        synchronized (ownShardWrites) {
+            ownShardWrites.addLast(hash);
+            while (ownShardWrites.size() > MAX_OWN_SHARD_WRITES) ownShardWrites.removeFirst();
+        }
+    }
+    
+    // Whether the shard content is one of our pending writes; retires it and older ones
+    private boolean consumeOwnShardWrite(String hash) {
+        synchronized (ownShardWrites) {
+            if (!ownShardWrites.contains(hash)) return false;
+            // Older writes were replaced before the watcher saw them
+            String oldest;
+            do {
+                oldest = ownShardWrites.removeFirst();
+            } while (!oldest.equals(hash));
+            return true;
+        }
+    }
+    
     /**
-     * Auto-reload if config changed externally
+     * Called on the watcher thread when the shard file changed on disk.
+     * Parses it there and swaps the result in atomically; our own
+     * write-behind writes are recognised by content hash and ignored.
+     * Keys set() since the last write keep their in-memory value and are
+     * written back over the external edit.
      */
-    private void maybeReload() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastLoadTime > RELOAD_INTERVAL) {
-            try {
-                if (Files.exists(shardConfigPath)) {
-                    long lastModified = Files.getLastModifiedTime(shardConfigPath).toMillis();
-                    if (lastModified > lastLoadTime) {
-                        Log.info("[ShardedConfig] Detected external change, reloading...");
-                        loadConfig();
-                    }
+    private void reloadFromWatcher() {
+        if (!Files.exists(shardConfigPath)) return;
+        
+        Map<String, String> loaded = new HashMap<>();
+        try {
+            byte[] content = Files.readAllBytes(shardConfigPath);
+            if (consumeOwnShardWrite(ConfigBackupStore.contentHash(content))) return;
+            
+            Properties props = new Properties();
+            props.load(new ByteArrayInputStream(content));
+            for (String key : props.stringPropertyNames()) {
+                loaded.put(key, props.getProperty(key));
+            }
+        } catch (IOException e) {
+            Log.warn("[ShardedConfig] Could not read changed shard, keeping current config", e);
+            return;
+        }
+        
+        int kept = 0;
+        synchronized (writeLock) {
+            lastWrittenValues = Collections.unmodifiableMap(new HashMap<>(loaded));
+            Map<String, String> merged = loaded;
+            for (String key : writeBehind.getPendingKeys()) {
+                String value = sessionLayer.get(key);
+                if (value == null) {
+                    merged.remove(key);
+                } else {
+                    merged.put(key, value);
                 }
-            } catch (Exception e) {
-                // Ignore reload errors
+                kept++;
             }
+            if (merged.equals(sessionLayer)) return;
+            sessionLayer = Collections.unmodifiableMap(merged);
+            rebuildLocked();
         }
+        if (kept > 0) {
+            saveConfig(); // A write already in flight may land without the external edit
+        }
+        Log.info("[ShardedConfig] Detected external change, reloaded " + loaded.size() + " keys"
+            + (kept > 0 ? " (" + kept + " unsaved keys kept)" : ""));
     }
     
     /**
      * Clean up this shard's files
      */
     public void cleanup() {
+        // Flush-on-shutdown: everything set so far is written (and the writer
+        // stopped) before the shard is removed, so nothing lands after it
+        writeBehind.shutdown();
+        shardWatcher.stop();
+        
         try {
             Files.deleteIfExists(shardConfigPath);
             Log.info("[ShardedConfig] Cleaned up shard: " + shardId);
@@ -314,17 +735,16 @@ public class ShardedConfigManager {
      * Import from global config (useful for migration)
      */
     public void importFromGlobal() {
-        lock.writeLock().lock();
         try {
             if (Files.exists(globalConfigPath)) {
-                loadFromFile(globalConfigPath);
+                Map<String, String> global = new HashMap<>();
+                loadFromFile(globalConfigPath, global);
+                setAll(global);
                 saveConfig(); // Save to shard
                 Log.info("[ShardedConfig] Imported from global config");
             }
         } catch (Exception e) {
             Log.error("[ShardedConfig] Import failed", e);
-        } finally {
-            lock.writeLock().unlock();
         }
     }
     
@@ -336,33 +756,335 @@ public class ShardedConfigManager {
     }
     
     /**
-     * Get all config as map (for display/debug)
+     * Get all resolved config as map (for display/debug)
      */
     public Map<String, String> getAllConfig() {
-        lock.readLock().lock();
-        try {
-            return new HashMap<>(configCache);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return new HashMap<>(snapshot.asMap());
     }
     
     /**
-     * Reset to defaults
+     * Reset to defaults: drop this session's own values, so every key
+     * resolves from the global, server and realm layers again
      */
     public void resetToDefaults() {
-        lock.writeLock().lock();
-        try {
-            configCache.clear();
-            loadDefaults();
-            saveConfig();
-            Log.info("[ShardedConfig] Reset to defaults");
-        } finally {
-            lock.writeLock().unlock();
+        synchronized (writeLock) {
+            sessionLayer = Collections.emptyMap();
+            rebuildLocked();
         }
+        saveConfig();
+        Log.info("[ShardedConfig] Reset to defaults");
     }
     
     public String getShardId() {
         return shardId;
     }
+    
+    // ---- Change listeners ----
+    
+    @FunctionalInterface
+    public interface ConfigListener {
+        void onChange(ConfigChangeEvent event);
+    }
+    
+    @FunctionalInterface
+    public interface Subscription {
+        void cancel();
+    }
+    
+    /**
+     * Listen for changes to one key
+     */
+    public Subscription subscribe(String key, ConfigListener listener) {
+        List<ConfigListener> list = keyListeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        list.add(listener);
+        return () -> list.remove(listener);
+    }
+    
+    /**
+     * Listen for changes to every key (for debug views; prefer subscribe(key))
+     */
+    public Subscription subscribeAll(ConfigListener listener) {
+        allKeyListeners.add(listener);
+        return () -> allKeyListeners.remove(listener);
+    }
+    
+    /**
+     * Deliver change events for everything that changed since the last call.
+     * Several swaps in between (e.g. a profile load followed by a realm
+     * switch) coalesce into one event per key carrying the net change; when
+     * nothing was swapped this is a single reference compare.
+     */
+    public void dispatchChanges() {
+        ConfigSnapshot current = snapshot;
+        ConfigSnapshot previous = lastDispatched;
+        if (current == previous) return;
+        lastDispatched = current;
+        
+        Map<String, String> before = previous.asMap();
+        Map<String, String> after = current.asMap();
+        
+        if (allKeyListeners.isEmpty()) {
+            // Only keys somebody listens to are worth diffing
+            for (Map.Entry<String, List<ConfigListener>> entry : keyListeners.entrySet()) {
+                String key = entry.getKey();
+                if (!Objects.equals(before.get(key), after.get(key))) {
+                    fire(entry.getValue(), new ConfigChangeEvent(key, previous, current));
+                }
+            }
+            return;
+        }
+        
+        Set<String> keys = new HashSet<>(before.keySet());
+        keys.addAll(after.keySet());
+        for (String key : keys) {
+            if (Objects.equals(before.get(key), after.get(key))) continue;
+            ConfigChangeEvent event = new ConfigChangeEvent(key, previous, current);
+            fire(keyListeners.getOrDefault(key, Collections.emptyList()), event);
+            fire(allKeyListeners, event);
+        }
+    }
+    
+    private void fire(List<ConfigListener> listeners, ConfigChangeEvent event) {
+        for (ConfigListener listener : listeners) {
+            try {
+                listener.onChange(event);
+            } catch (Exception e) {
+                Log.error("[ShardedConfig] Listener for " + event.getKey() + " failed", e);
+            }
+        }
+    }
+    
+    /**
+     * One key's change between two snapshots. Typed getters read the new
+     * snapshot's pre-parsed values, so listeners never parse strings.
+     */
+    public static final class ConfigChangeEvent {
+        private final String key;
+        private final ConfigSnapshot previous;
+        private final ConfigSnapshot current;
+        
+        private ConfigChangeEvent(String key, ConfigSnapshot previous, ConfigSnapshot current) {
+            this.key = key;
+            this.previous = previous;
+            this.current = current;
+        }
+        
+        public String getKey() { return key; }
+        public String getOldValue() { return previous.getString(key, null); }
+        public String getNewValue() { return current.getString(key, null); }
+        public boolean isRemoved() { return !current.contains(key); }
+        
+        public String getString(String defaultValue) { return current.getString(key, defaultValue); }
+        public boolean getBoolean(boolean defaultValue) { return current.getBoolean(key, defaultValue); }
+        public long getLong(long defaultValue) { return current.getLong(key, defaultValue); }
+        public int getInt(int defaultValue) { return current.getInt(key, defaultValue); }
+        public ConfigSnapshot getSnapshot() { return current; }
+    }
+    
+    // ---- Typed handles ----
+    //
+    // A handle resolves its key against the current snapshot once and caches
+    // the parsed value; get() is then a reference compare against the live
+    // snapshot plus a field read, with no string lookup or parsing until the
+    // next swap.
+    
+    public BooleanKey booleanKey(String key, boolean defaultValue) {
+        return new BooleanKey(key, defaultValue);
+    }
+    
+    public LongKey longKey(String key, long defaultValue) {
+        return new LongKey(key, defaultValue);
+    }
+    
+    public IntKey intKey(String key, int defaultValue) {
+        return new IntKey(key, defaultValue);
+    }
+    
+    public StringKey stringKey(String key, String defaultValue) {
+        return new StringKey(key, defaultValue);
+    }
+    
+    public <E extends Enum<E>> EnumKey<E> enumKey(String key, Class<E> type, E defaultValue) {
+        return new EnumKey<>(key, type, defaultValue);
+    }
+    
+    // Subsystems bind their handles once, on the first loadFromConfig() or
+    // saveToConfig(), with these overloads: the handle is also subscribed,
+    // so later changes (profiles, presets, realm layers) reach the
+    // subsystem per key without a reload.
+    
+    public BooleanKey booleanKey(String key, boolean defaultValue, Consumer<Boolean> onChange) {
+        BooleanKey handle = booleanKey(key, defaultValue);
+        handle.subscribe(onChange);
+        return handle;
+    }
+    
+    public LongKey longKey(String key, long defaultValue, LongConsumer onChange) {
+        LongKey handle = longKey(key, defaultValue);
+        handle.subscribe(onChange);
+        return handle;
+    }
+    
+    public IntKey intKey(String key, int defaultValue, IntConsumer onChange) {
+        IntKey handle = intKey(key, defaultValue);
+        handle.subscribe(onChange);
+        return handle;
+    }
+    
+    public StringKey stringKey(String key, String defaultValue, Consumer<String> onChange) {
+        StringKey handle = stringKey(key, defaultValue);
+        handle.subscribe(onChange);
+        return handle;
+    }
+    
+    public <E extends Enum<E>> EnumKey<E> enumKey(String key, Class<E> type, E defaultValue, Consumer<E> onChange) {
+        EnumKey<E> handle = enumKey(key, type, defaultValue);
+        handle.subscribe(onChange);
+        return handle;
+    }
+    
+    public final class BooleanKey {
+        private final String key;
+        private final boolean defaultValue;
+        private Resolved resolved = new Resolved(null, false);
+        
+        private record Resolved(ConfigSnapshot from, boolean value) {}
+        
+        private BooleanKey(String key, boolean defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+        
+        public boolean get() {
+            ConfigSnapshot current = snapshot;
+            Resolved r = resolved;
+            if (r.from != current) {
+                r = new Resolved(current, current.getBoolean(key, defaultValue));
+                resolved = r;
+            }
+            return r.value;
+        }
+        
+        public void set(boolean value) { ShardedConfigManager.this.set(key, value); }
+        public Subscription subscribe(Consumer<Boolean> onChange) {
+            return ShardedConfigManager.this.subscribe(key, e -> onChange.accept(e.getBoolean(defaultValue)));
+        }
+        public String getKey() { return key; }
+    }
+    
+    public final class LongKey {
+        private final String key;
+        private final long defaultValue;
+        private Resolved resolved = new Resolved(null, 0);
+        
+        private record Resolved(ConfigSnapshot from, long value) {}
+        
+        private LongKey(String key, long defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+        
+        public long get() {
+            ConfigSnapshot current = snapshot;
+            Resolved r = resolved;
+            if (r.from != current) {
+                r = new Resolved(current, current.getLong(key, defaultValue));
+                resolved = r;
+            }
+            return r.value;
+        }
+        
+        public void set(long value) { ShardedConfigManager.this.set(key, value); }
+        public Subscription subscribe(LongConsumer onChange) {
+            return ShardedConfigManager.this.subscribe(key, e -> onChange.accept(e.getLong(defaultValue)));
+        }
+        public String getKey() { return key; }
+    }
+    
+    public final class IntKey {
+        private final String key;
+        private final int defaultValue;
+        private Resolved resolved = new Resolved(null, 0);
+        
+        private record Resolved(ConfigSnapshot from, int value) {}
+        
+        private IntKey(String key, int defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+        
+        public int get() {
+            ConfigSnapshot current = snapshot;
+            Resolved r = resolved;
+            if (r.from != current) {
+                r = new Resolved(current, current.getInt(key, defaultValue));
+                resolved = r;
+            }
+            return r.value;
+        }
+        
+        public void set(int value) { ShardedConfigManager.this.set(key, value); }
+        public Subscription subscribe(IntConsumer onChange) {
+            return ShardedConfigManager.this.subscribe(key, e -> onChange.accept(e.getInt(defaultValue)));
+        }
+        public String getKey() { return key; }
+    }
+    
+    public final class StringKey {
+        private final String key;
+        private final String defaultValue;
+        
+        private StringKey(String key, String defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+        
+        // Strings need no parsing, so there is nothing worth caching
+        public String get() { return snapshot.getString(key, defaultValue); }
+        public void set(String value) { ShardedConfigManager.this.set(key, value); }
+        public Subscription subscribe(Consumer<String> onChange) {
+            return ShardedConfigManager.this.subscribe(key, e -> onChange.accept(e.getString(defaultValue)));
+        }
+        public String getKey() { return key; }
+    }
+    
+    public final class EnumKey<E extends Enum<E>> {
+        private final String key;
+        private final Class<E> type;
+        private final E defaultValue;
+        private Resolved<E> resolved = new Resolved<>(null, null);
+        
+        private record Resolved<E>(ConfigSnapshot from, E value) {}
+        
+        private EnumKey(String key, Class<E> type, E defaultValue) {
+            this.key = key;
+            this.type = type;
+            this.defaultValue = defaultValue;
+        }
+        
+        public E get() {
+            ConfigSnapshot current = snapshot;
+            Resolved<E> r = resolved;
+            if (r.from != current) {
+                r = new Resolved<>(current, parse(current.getString(key, null)));
+                resolved = r;
+            }
+            return r.value;
+        }
+        
+        private E parse(String raw) {
+            if (raw == null) return defaultValue;
+            try {
+                return Enum.valueOf(type, raw);
+            } catch (IllegalArgumentException e) {
+                return defaultValue;
+            }
+        }
+        
+        public void set(E value) { ShardedConfigManager.this.set(key, value.name()); }
+        public Subscription subscribe(Consumer<E> onChange) {
+            return ShardedConfigManager.this.subscribe(key, e -> onChange.accept(parse(e.getNewValue())));
+        }
+        public String getKey() { return key; }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+// Path: src/main/java/com/bapelauto/SharedTokenBucket.java
+package com.bapelauto;
+
+import com.bapelauto.util.Log;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter shared by every instance on the machine.
+ *
+ * All clients on one IP share the server's spam allowance, so the bucket
+ * lives in a small memory-mapped file instead of in each process. It is a
+ * token bucket in GCRA form: the whole state is one long, the theoretical
+ * arrival time (TAT) of the next command, so taking a token is a single
+ * compare-and-set on the mapped buffer with no file locks. Whichever
+ * instance asks first gets the token, so the fleet can use the full rate
+ * between them but never more.
+ *
+ * If the file can't be mapped the bucket falls back to a process-local one.
+ */
+public final class SharedTokenBucket {
+
+    private static final String BUCKET_FILE = "config/bapelauto/command_bucket.bin";
+    private static final int FILE_SIZE = 64; // TAT at offset 0, rest reserved
+
+    private static final VarHandle LONG_VIEW =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Path file;
+    private final MappedByteBuffer buffer; // null = process-local fallback
+    private final AtomicLong localTat = new AtomicLong(); // Fallback state
+
+    private volatile long intervalMs;
+    private volatile long toleranceMs;
+
+    public SharedTokenBucket(long intervalMs, int burst) {
+        this.file = Paths.get(BUCKET_FILE);
+        configure(intervalMs, burst);
+        this.buffer = open();
+    }
+
+    private MappedByteBuffer open() {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            Log.warn("[RateLimit] Shared command bucket unavailable, limiting this instance only", e);
+            return null;
+        }
+    }
+
+    /**
+     * One command every intervalMs on average, with up to burst back to back.
+     * Instances should agree on these; the bucket state itself is shared.
+     */
+    public void configure(long intervalMs, int burst) {
+        this.intervalMs = Math.max(1, intervalMs);
+        this.toleranceMs = this.intervalMs * (Math.max(1, burst) - 1);
+    }
+
+    /**
+     * Take a token if one is available right now
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(long now) {
+        long interval = intervalMs;
+        long tolerance = toleranceMs;
+        while (true) {
+            long observed = readTat();
+            long tat = observed;
+            // A TAT further ahead than one full burst can only come from the
+            // clock stepping back (or a stale file) - start over from now
+            if (tat > now + tolerance + interval) {
+                tat = now;
+            }
+            if (tat - tolerance > now) {
+                return false; // Bucket empty
+            }
+            long next = Math.max(tat, now) + interval;
+            if (casTat(observed, next)) {
+                return true;
+            }
+            // Lost the race to another thread or instance - re-read and retry
+        }
+    }
+
+    /**
+     * Milliseconds until a token will be available (0 = now)
+     */
+    public long millisUntilAvailable() {
+        long now = System.currentTimeMillis();
+        long wait = readTat() - toleranceMs - now;
+        return Math.max(0, Math.min(wait, toleranceMs + intervalMs));
+    }
+
+    public boolean isShared() {
+        return buffer != null;
+    }
+
+    private long readTat() {
+        return buffer != null ? (long) LONG_VIEW.getVolatile(buffer, 0) : localTat.get();
+    }
+
+    // Only succeeds if nobody changed the TAT since we read it
+    private boolean casTat(long observed, long next) {
+        if (buffer != null) {
+            return LONG_VIEW.compareAndSet(buffer, 0, observed, next);
+        }
+        return localTat.compareAndSet(observed, next);
+    }
+}
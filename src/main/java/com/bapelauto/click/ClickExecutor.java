@@ -28,6 +28,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
 import net.minecraft.client.input.MouseButtonEvent;
 import net.minecraft.client.input.MouseButtonInfo;
+import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.ContainerInput;
 
 public class ClickExecutor {
@@ -36,7 +37,7 @@ public class ClickExecutor {
     public boolean executeClick(Minecraft client, ClickTarget target) {
         try {
             if (target.type == ClickTarget.Type.SLOT && client.screen instanceof AbstractContainerScreen) {
-                return clickSlot(client, (AbstractContainerScreen<?>) client.screen, target.slotId);
+                return clickSlot(client, (AbstractContainerScreen<?>) client.screen, target.slotId, target.button, target.input);
             } else if (target.type == ClickTarget.Type.POINT && client.screen != null) {
                 return clickPoint(client, target.x, target.y);
             }
@@ -46,16 +47,20 @@ public class ClickExecutor {
         return false;
     }
     
-    private boolean clickSlot(Minecraft client, AbstractContainerScreen<?> screen, int slotId) {
+    /**
+     * Send one container input for a slot of the open screen
+     */
+    public boolean clickSlot(Minecraft client, AbstractContainerScreen<?> screen, int slotId, int button, ContainerInput input) {
         if (client.gameMode == null || client.player == null) return false;
         
         try {
-            if (slotId >= 0 && slotId < screen.getMenu().slots.size()) {
+            // -999 is the "outside the window" slot used to drop the carried stack
+            if ((slotId >= 0 && slotId < screen.getMenu().slots.size()) || slotId == AbstractContainerMenu.SLOT_CLICKED_OUTSIDE) {
                 client.gameMode.handleContainerInput(
                     screen.getMenu().containerId,
                     slotId,
-                    0, 
-                    ContainerInput.PICKUP, 
+                    button,
+                    input,
                     client.player
                 );
                 totalClicks++;
@@ -8,7 +8,8 @@ public enum ClickMode {
     SINGLE_POINT("Single Point", "Click one target repeatedly"),
     MULTI_POINT("Multi Point", "Click multiple points in sequence"),
     SLOT_SEQUENCE("Slot Sequence", "Click multiple slots in order"),
-    MACRO_REPLAY("Macro Replay", "Replay recorded actions with timing");
+    MACRO_REPLAY("Macro Replay", "Replay recorded actions with timing"),
+    PROGRAM("Program", "Run a compiled click program");
     
     private final String displayName;
     private final String description;
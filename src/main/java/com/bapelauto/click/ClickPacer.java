@@ -0,0 +1,187 @@
+// ============================================
+// FILE: ClickPacer.java
+// Path: src/main/java/com/bapelauto/click/ClickPacer.java
+//
+// Adaptive pacing for container clicks, shared by everything that clicks
+// (GuiClickManager, InventoryManager, the Slimefun feeders), since they
+// all talk to the same server.
+//
+// Acknowledgements: a container click carries the client's predicted slot
+// contents, and the server only answers with slot updates where its result
+// differs. So silence is the ack - a batch counts as confirmed once one
+// round trip (player ping, plus a tick of margin) has passed with no
+// correction. Corrections come from ContainerModel (a server slot update
+// contradicting a prediction) and from full content resyncs
+// (ClientPacketListenerMixin) while clicks are in flight.
+//
+// AIMD on a normalized rate: each confirmed batch adds RATE_STEP; a
+// correction, a resync or a ping spike halves it. Callers divide their
+// configured delay by the rate, so a fast server converges below the
+// configured delay and a laggy one backs off before ghost items pile up.
+// At most WINDOW batches may be unconfirmed at once. A batch is whatever a
+// caller sends in one go (one GuiClickManager pump, one program run, one
+// feeder round), so the window bounds unconfirmed work, not the click rate.
+// ============================================
+package com.bapelauto.click;
+
+import com.bapelauto.util.Log;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.PlayerInfo;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+
+public final class ClickPacer {
+
+    private static final double MIN_RATE = 0.125; // Delay up to 8x the configured one
+    private static final double MAX_RATE = 4.0;   // Delay down to 1/4
+    private static final double RATE_STEP = 0.05;
+    private static final double BACKOFF = 0.5;
+    private static final int WINDOW = 4;
+    private static final long TICK_MS = 50;
+    private static final long MIN_SETTLE_MS = 100;
+    private static final long MAX_SETTLE_MS = 1000;
+    private static final long MIN_LAG_MS = 250;
+    private static final long MIN_DELAY_MS = 20;
+    private static final long PING_SAMPLE_INTERVAL_MS = 1000;
+
+    private boolean enabled = true;
+    private double rate = 1.0;
+
+    // Unconfirmed batches, oldest first (ring of send times)
+    private final long[] inFlight = new long[WINDOW];
+    private int inFlightHead = 0;
+    private int inFlightCount = 0;
+    private int trackedContainer = -1;
+
+    // Smoothed round trip, from the player's ping
+    private double srttMs = 0;
+    private long lastPingSample = 0;
+
+    private long confirmed = 0;
+    private long corrections = 0;
+    private long backoffs = 0;
+    private long resyncs = 0;
+
+    /**
+     * The caller's configured delay, scaled by the current rate
+     */
+    public long pace(long configuredDelayMs) {
+        if (!enabled) return configuredDelayMs;
+        return Math.max(MIN_DELAY_MS, Math.round(configuredDelayMs / rate));
+    }
+
+    /**
+     * Settle confirmed batches and report whether another may be sent
+     */
+    public boolean canSend(AbstractContainerMenu menu) {
+        if (!enabled) return true;
+        observe(menu, System.currentTimeMillis());
+        return inFlightCount < WINDOW;
+    }
+
+    /**
+     * Call once after sending one batch of container inputs, however many
+     * clicks it held
+     */
+    public void onSent(AbstractContainerMenu menu) {
+        if (!enabled) return;
+        long now = System.currentTimeMillis();
+        observe(menu, now);
+        if (inFlightCount == WINDOW) {
+            dropOldest(); // Caller ignored canSend() - keep the newest
+        }
+        inFlight[(inFlightHead + inFlightCount) % WINDOW] = now;
+        inFlightCount++;
+    }
+
+    /**
+     * Time after which an uncorrected click counts as applied
+     */
+    long getSettleMillis() {
+        return Math.max(MIN_SETTLE_MS, Math.min(MAX_SETTLE_MS, Math.round(srttMs * 1.5) + TICK_MS));
+    }
+
+    private void observe(AbstractContainerMenu menu, long now) {
+        if (menu.containerId != trackedContainer) {
+            // New screen - nothing in flight for it yet
+            trackedContainer = menu.containerId;
+            inFlightCount = 0;
+        }
+
+        samplePing(now);
+
+        long settle = getSettleMillis();
+        while (inFlightCount > 0 && now - inFlight[inFlightHead] > settle) {
+            dropOldest();
+            confirmed++;
+            rate = Math.min(MAX_RATE, rate + RATE_STEP);
+        }
+    }
+
+    private void samplePing(long now) {
+        if (now - lastPingSample < PING_SAMPLE_INTERVAL_MS) return;
+        lastPingSample = now;
+
+        Minecraft client = Minecraft.getInstance();
+        if (client.player == null || client.getConnection() == null) return;
+        PlayerInfo info = client.getConnection().getPlayerInfo(client.player.getUUID());
+        if (info == null || info.getLatency() <= 0) return;
+
+        int ping = info.getLatency();
+        if (srttMs > 0 && ping > Math.max(MIN_LAG_MS, 2 * srttMs)) {
+            backOff(); // Lag spike
+        }
+        srttMs = srttMs == 0 ? ping : srttMs * 0.875 + ping * 0.125;
+    }
+
+    /**
+     * The server contradicted a predicted slot (ContainerModel)
+     */
+    public void onCorrection() {
+        if (!enabled) return;
+        corrections++;
+        inFlightCount = 0;
+        backOff();
+    }
+
+    /**
+     * Server sent the whole container again (ClientPacketListenerMixin)
+     */
+    public void onResync(int containerId) {
+        if (!enabled || containerId != trackedContainer || inFlightCount == 0) return;
+        resyncs++;
+        inFlightCount = 0;
+        backOff();
+        Log.info(String.format("[ClickPacer] Container resync, backing off to %.2fx", rate));
+    }
+
+    private void backOff() {
+        backoffs++;
+        rate = Math.max(MIN_RATE, rate * BACKOFF);
+    }
+
+    private void dropOldest() {
+        if (inFlightCount == 0) return;
+        inFlightHead = (inFlightHead + 1) % WINDOW;
+        inFlightCount--;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            rate = 1.0;
+            inFlightCount = 0;
+        }
+    }
+
+    public boolean isEnabled() { return enabled; }
+    /** Current speed relative to the configured delays (1.0 = as configured) */
+    public double getRate() { return rate; }
+    public double getSmoothedLatencyMs() { return srttMs; }
+    public int getInFlight() { return inFlightCount; }
+    /** Batches that settled without a correction */
+    public long getAckCount() { return confirmed; }
+    public long getCorrectionCount() { return corrections; }
+    public long getBackoffCount() { return backoffs; }
+    public long getResyncCount() { return resyncs; }
+}
@@ -0,0 +1,232 @@
+// ============================================
+// FILE: ClickProgram.java
+// Path: src/main/java/com/bapelauto/click/ClickProgram.java
+//
+// A small click program, compiled to parallel int arrays so the runner is a
+// plain switch over primitives with no allocation per step.
+//
+// Source format, one statement per line ('#' starts a comment):
+//
+//   CLICK <slot> [input] [button]   input = ContainerInput name, default PICKUP
+//   WAIT <ms>                       clicks are always at least baseDelay apart
+//   LOOP <n> ... END                n >= 1, loops nest
+//   IF HAS <slot> ... [ELSE ...] END
+//   IF EMPTY <slot> ... [ELSE ...] END
+//   GOTO <label>
+//   <label>:
+//   STOP                            ends the run (otherwise it starts over)
+//
+// Example - take output whenever it appears, feed input otherwise:
+//
+//   start:
+//   IF HAS 24
+//     CLICK 24 QUICK_MOVE
+//     GOTO start
+//   END
+//   CLICK 19 QUICK_MOVE
+//   WAIT 200
+// ============================================
+package com.bapelauto.click;
+
+import net.minecraft.world.inventory.ContainerInput;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class ClickProgram {
+
+    // Opcodes
+    static final int CLICK = 0;        // a = slot, b = input ordinal, c = button
+    static final int WAIT = 1;         // a = ms
+    static final int LOOP_INIT = 2;    // a = counter, b = count
+    static final int LOOP_NEXT = 3;    // a = counter, b = body start
+    static final int JUMP_UNLESS_HAS = 4;   // a = slot, b = target
+    static final int JUMP_UNLESS_EMPTY = 5; // a = slot, b = target
+    static final int JUMP = 6;         // b = target
+    static final int STOP = 7;
+
+    final int[] ops;
+    final int[] argA;
+    final int[] argB;
+    final int[] argC;
+    final int counterCount;
+    private final String name;
+
+    private ClickProgram(String name, int size, int counterCount) {
+        this.name = name;
+        this.ops = new int[size];
+        this.argA = new int[size];
+        this.argB = new int[size];
+        this.argC = new int[size];
+        this.counterCount = counterCount;
+    }
+
+    public String getName() { return name; }
+    public int size() { return ops.length; }
+
+    /**
+     * Compile program text. Throws IllegalArgumentException naming the line
+     * on any syntax error.
+     */
+    public static ClickProgram compile(String name, String source) {
+        Compiler compiler = new Compiler();
+        String[] lines = source.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            try {
+                compiler.line(lines[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return compiler.finish(name);
+    }
+
+    private static final class Compiler {
+        private final List<int[]> code = new ArrayList<>(); // {op, a, b, c}
+        private final Map<String, Integer> labels = new HashMap<>();
+        private final Map<Integer, String> gotoFixups = new HashMap<>();
+        private final Deque<int[]> blocks = new ArrayDeque<>(); // {kind, index, extra}
+        private int counters = 0;
+
+        private static final int BLOCK_LOOP = 0;
+        private static final int BLOCK_IF = 1;
+        private static final int BLOCK_ELSE = 2;
+
+        void line(String raw) {
+            int comment = raw.indexOf('#');
+            String line = (comment >= 0 ? raw.substring(0, comment) : raw).trim();
+            if (line.isEmpty()) return;
+
+            if (line.endsWith(":")) {
+                String label = line.substring(0, line.length() - 1).trim();
+                if (label.isEmpty() || label.contains(" ")) throw new IllegalArgumentException("bad label '" + line + "'");
+                if (labels.putIfAbsent(label, code.size()) != null) {
+                    throw new IllegalArgumentException("duplicate label '" + label + "'");
+                }
+                return;
+            }
+
+            String[] t = line.split("\\s+");
+            switch (t[0].toUpperCase(Locale.ROOT)) {
+                case "CLICK": {
+                    expectArgs(t, 2, 4);
+                    int slot = number(t[1]);
+                    ContainerInput input = ContainerInput.PICKUP;
+                    if (t.length > 2) {
+                        try {
+                            input = ContainerInput.valueOf(t[2].toUpperCase(Locale.ROOT));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("unknown input '" + t[2] + "'");
+                        }
+                    }
+                    int button = t.length > 3 ? number(t[3]) : 0;
+                    emit(CLICK, slot, input.ordinal(), button);
+                    break;
+                }
+                case "WAIT":
+                    expectArgs(t, 2, 2);
+                    emit(WAIT, number(t[1]), 0, 0);
+                    break;
+                case "LOOP": {
+                    expectArgs(t, 2, 2);
+                    int n = number(t[1]);
+                    if (n < 1) throw new IllegalArgumentException("LOOP count must be at least 1");
+                    int counter = counters++;
+                    emit(LOOP_INIT, counter, n, 0);
+                    blocks.push(new int[] { BLOCK_LOOP, code.size(), counter });
+                    break;
+                }
+                case "IF": {
+                    expectArgs(t, 3, 3);
+                    String cond = t[1].toUpperCase(Locale.ROOT);
+                    int op;
+                    if (cond.equals("HAS")) op = JUMP_UNLESS_HAS;
+                    else if (cond.equals("EMPTY")) op = JUMP_UNLESS_EMPTY;
+                    else throw new IllegalArgumentException("IF needs HAS or EMPTY, got '" + t[1] + "'");
+                    blocks.push(new int[] { BLOCK_IF, code.size(), 0 });
+                    emit(op, number(t[2]), -1, 0);
+                    break;
+                }
+                case "ELSE": {
+                    expectArgs(t, 1, 1);
+                    int[] block = blocks.peek();
+                    if (block == null || block[0] != BLOCK_IF) throw new IllegalArgumentException("ELSE without IF");
+                    blocks.pop();
+                    int jumpOverElse = code.size();
+                    emit(JUMP, 0, -1, 0);
+                    code.get(block[1])[2] = code.size(); // False branch starts here
+                    blocks.push(new int[] { BLOCK_ELSE, jumpOverElse, 0 });
+                    break;
+                }
+                case "END": {
+                    expectArgs(t, 1, 1);
+                    if (blocks.isEmpty()) throw new IllegalArgumentException("END without LOOP or IF");
+                    int[] block = blocks.pop();
+                    if (block[0] == BLOCK_LOOP) {
+                        emit(LOOP_NEXT, block[2], block[1], 0);
+                    } else {
+                        code.get(block[1])[2] = code.size();
+                    }
+                    break;
+                }
+                case "GOTO":
+                    expectArgs(t, 2, 2);
+                    gotoFixups.put(code.size(), t[1]);
+                    emit(JUMP, 0, -1, 0);
+                    break;
+                case "STOP":
+                    expectArgs(t, 1, 1);
+                    emit(STOP, 0, 0, 0);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown statement '" + t[0] + "'");
+            }
+        }
+
+        ClickProgram finish(String name) {
+            if (!blocks.isEmpty()) throw new IllegalArgumentException("missing END");
+            if (code.isEmpty()) throw new IllegalArgumentException("program is empty");
+
+            for (Map.Entry<Integer, String> fixup : gotoFixups.entrySet()) {
+                Integer target = labels.get(fixup.getValue());
+                if (target == null) throw new IllegalArgumentException("unknown label '" + fixup.getValue() + "'");
+                code.get(fixup.getKey())[2] = target;
+            }
+
+            ClickProgram program = new ClickProgram(name, code.size(), counters);
+            for (int i = 0; i < code.size(); i++) {
+                int[] insn = code.get(i);
+                program.ops[i] = insn[0];
+                program.argA[i] = insn[1];
+                program.argB[i] = insn[2];
+                program.argC[i] = insn[3];
+            }
+            return program;
+        }
+
+        private void emit(int op, int a, int b, int c) {
+            code.add(new int[] { op, a, b, c });
+        }
+
+        private static void expectArgs(String[] t, int min, int max) {
+            if (t.length < min || t.length > max) {
+                throw new IllegalArgumentException("wrong number of arguments for " + t[0]);
+            }
+        }
+
+        private static int number(String s) {
+            try {
+                int n = Integer.parseInt(s);
+                if (n < 0) throw new IllegalArgumentException("negative number '" + s + "'");
+                return n;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a number '" + s + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+// ============================================
+// FILE: ClickProgramRunner.java
+// Path: src/main/java/com/bapelauto/click/ClickProgramRunner.java
+//
+// Interpreter for a compiled ClickProgram. run() executes instructions
+// until the program waits, stops, or hits the per-run click budget, and
+// reports how long to sleep before the next run. Every CLICK is followed
+// by at least the caller's click gap (a WAIT right after it stretches the
+// gap rather than adding to it), so a loop with no WAIT still clicks at the
+// configured rate rather than as fast as the client can pump. State is just the program
+// counter and the loop counters, so pausing and resuming is free.
+// ============================================
+package com.bapelauto.click;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerInput;
+
+import java.util.Arrays;
+
+final class ClickProgramRunner {
+
+    /** run() result: the program reached STOP */
+    static final long HALTED = -1;
+
+    // Guards against GOTO loops that never click or wait
+    private static final int MAX_STEPS_PER_RUN = 1024;
+    private static final long NANOS_PER_MS = 1_000_000L;
+    private static final ContainerInput[] INPUTS = ContainerInput.values();
+
+    private final ClickProgram program;
+    private final int[] counters;
+    private int pc = 0;
+    private int clicksLastRun = 0;
+
+    ClickProgramRunner(ClickProgram program) {
+        this.program = program;
+        this.counters = new int[program.counterCount];
+    }
+
+    void reset() {
+        pc = 0;
+        Arrays.fill(counters, 0);
+    }
+
+    /**
+     * Run until the next wait, or until a click when clickGapNanos is set.
+     * Returns the wait in nanoseconds (0 = run again on the next pump), or
+     * HALTED.
+     */
+    long run(Minecraft client, AbstractContainerScreen<?> screen, ClickExecutor executor, ClickPacer pacer,
+             int maxClicks, long clickGapNanos) {
+        final int[] ops = program.ops;
+        final int[] a = program.argA;
+        final int[] b = program.argB;
+        final int[] c = program.argC;
+        AbstractContainerMenu menu = screen.getMenu();
+        clicksLastRun = 0;
+
+        for (int steps = 0; steps < MAX_STEPS_PER_RUN; steps++) {
+            if (pc >= ops.length) pc = 0; // Fell off the end - start over
+
+            switch (ops[pc]) {
+                case ClickProgram.CLICK:
+                    if (clicksLastRun >= maxClicks) return 0;
+                    // The run's clicks are one pacer batch, gated before the first
+                    if (clicksLastRun == 0 && !pacer.canSend(menu)) return 0; // Server behind - resume when it acks
+                    if (!executor.clickSlot(client, screen, a[pc], c[pc], INPUTS[b[pc]])) {
+                        return 0; // Slot not there yet - retry this click next pump
+                    }
+                    clicksLastRun++;
+                    pc++;
+                    if (clickGapNanos > 0) {
+                        // A WAIT right after the click counts toward the gap
+                        long gap = clickGapNanos;
+                        if (pc < ops.length && ops[pc] == ClickProgram.WAIT) {
+                            gap = Math.max(gap, a[pc++] * NANOS_PER_MS);
+                        }
+                        return gap;
+                    }
+                    break;
+                case ClickProgram.WAIT:
+                    return a[pc++] * NANOS_PER_MS;
+                case ClickProgram.LOOP_INIT:
+                    counters[a[pc]] = b[pc];
+                    pc++;
+                    break;
+                case ClickProgram.LOOP_NEXT:
+                    pc = --counters[a[pc]] > 0 ? b[pc] : pc + 1;
+                    break;
+                case ClickProgram.JUMP_UNLESS_HAS:
+                    pc = hasItem(menu, a[pc]) ? pc + 1 : b[pc];
+                    break;
+                case ClickProgram.JUMP_UNLESS_EMPTY:
+                    pc = hasItem(menu, a[pc]) ? b[pc] : pc + 1;
+                    break;
+                case ClickProgram.JUMP:
+                    pc = b[pc];
+                    break;
+                case ClickProgram.STOP:
+                default:
+                    pc = 0;
+                    return HALTED;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean hasItem(AbstractContainerMenu menu, int slot) {
+        return slot < menu.slots.size() && menu.slots.get(slot).hasItem();
+    }
+
+    int getClicksLastRun() { return clicksLastRun; }
+    ClickProgram getProgram() { return program; }
+}
@@ -0,0 +1,119 @@
+// ============================================
+// FILE: ClickScheduler.java
+// Path: src/main/java/com/bapelauto/click/ClickScheduler.java
+//
+// Deadline-based click timing. The next click is due at an absolute
+// System.nanoTime() deadline that advances by the configured delay from the
+// previous deadline (not from "now"), so the click rate doesn't drift with
+// tick or frame jitter. GuiClickManager pumps it from both the client tick
+// and every rendered frame of a container screen; when a pump finds several
+// deadlines already passed it fires them all, so delays under 50 ms aren't
+// quantized to one click per tick.
+//
+// Also measures the achieved clicks-per-second against the target rate.
+// ============================================
+package com.bapelauto.click;
+
+final class ClickScheduler {
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    // If we fall further behind than this (screen closed, game paused, a
+    // long GC), skip ahead instead of firing the whole backlog at once
+    private static final long MAX_LAG_NANOS = 250 * NANOS_PER_MS;
+
+    private long nextDeadline;
+    private boolean armed = false;
+
+    // Timestamps of recent clicks (ring), for the achieved rate
+    private final long[] recent = new long[512];
+    private int recentHead = 0;
+    private int recentSize = 0;
+
+    // Moving average of the scheduled delay, for the target rate
+    private double avgDelayMs = 0;
+
+    void start(long now) {
+        nextDeadline = now;
+        armed = true;
+        recentSize = 0;
+        avgDelayMs = 0;
+    }
+
+    void stop() {
+        armed = false;
+    }
+
+    /**
+     * True if a click is due. Re-anchors the schedule first if it has fallen
+     * hopelessly behind.
+     */
+    boolean isDue(long now) {
+        if (!armed) return false;
+        if (now - nextDeadline > MAX_LAG_NANOS) {
+            nextDeadline = now;
+        }
+        return now >= nextDeadline;
+    }
+
+    /**
+     * A click was made; the next one is due delayMs after this one's deadline
+     */
+    void clicked(long now, long delayMs) {
+        clickedNanos(now, Math.max(0, delayMs) * NANOS_PER_MS);
+    }
+
+    /**
+     * Same, with a delay finer than a millisecond (sped-up macro replay)
+     */
+    void clickedNanos(long now, long delayNanos) {
+        advance(delayNanos);
+        recordClick(now);
+        double delayMs = delayNanos / (double) NANOS_PER_MS;
+
+        avgDelayMs = avgDelayMs == 0 ? delayMs : avgDelayMs * 0.9 + delayMs * 0.1;
+    }
+
+    /**
+     * Push the deadline back without counting a click (click program waits)
+     */
+    void advance(long delayNanos) {
+        nextDeadline += Math.max(0, delayNanos);
+    }
+
+    /**
+     * Count a click for the achieved rate
+     */
+    void recordClick(long now) {
+        recent[recentHead] = now;
+        recentHead = (recentHead + 1) % recent.length;
+        if (recentSize < recent.length) recentSize++;
+    }
+
+    /**
+     * The click couldn't be made (e.g. slot not there yet) - try again next pump
+     */
+    void retry(long now) {
+        nextDeadline = now;
+    }
+
+    /**
+     * Clicks made in the last second
+     */
+    double getAchievedCps(long now) {
+        int count = 0;
+        for (int i = 1; i <= recentSize; i++) {
+            long t = recent[(recentHead - i + recent.length) % recent.length];
+            if (now - t > WINDOW_NANOS) break;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Rate the configured delays ask for (0 before the first click)
+     */
+    double getTargetCps() {
+        return avgDelayMs <= 0 ? 0 : 1000.0 / avgDelayMs;
+    }
+}
@@ -4,6 +4,8 @@
 // ============================================
 package com.bapelauto.click;
 
+import net.minecraft.world.inventory.ContainerInput;
+
 public class ClickTarget {
     public enum Type { POINT, SLOT }
     
@@ -11,6 +13,9 @@ public class ClickTarget {
     public final double x, y;
     public final int slotId;
     public final long customDelay;
+    // For SLOT targets: what to send (left-click PICKUP unless recorded otherwise)
+    public final int button;
+    public final ContainerInput input;
     
     public ClickTarget(double x, double y, long delay) {
         this.type = Type.POINT;
@@ -18,19 +23,33 @@ public class ClickTarget {
         this.y = y;
         this.slotId = -1;
         this.customDelay = delay;
+        this.button = 0;
+        this.input = ContainerInput.PICKUP;
     }
     
     public ClickTarget(int slotId, long delay) {
+        this(slotId, 0, ContainerInput.PICKUP, delay);
+    }
+    
+    /**
+     * A slot action exactly as the player made it (recorded from real input)
+     */
+    public ClickTarget(int slotId, int button, ContainerInput input, long delay) {
         this.type = Type.SLOT;
         this.slotId = slotId;
         this.x = 0;
         this.y = 0;
         this.customDelay = delay;
+        this.button = button;
+        this.input = input;
     }
     
     @Override
     public String toString() {
         if (type == Type.SLOT) {
+            if (input != ContainerInput.PICKUP || button != 0) {
+                return String.format("Slot[%d, %s/%d, delay=%dms]", slotId, input, button, customDelay);
+            }
             return String.format("Slot[%d, delay=%dms]", slotId, customDelay);
         }
         return String.format("Point[%.0f,%.0f, delay=%dms]", x, y, customDelay);
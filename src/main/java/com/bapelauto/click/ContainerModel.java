@@ -0,0 +1,215 @@
+// ============================================
+// FILE: ContainerModel.java
+// Path: src/main/java/com/bapelauto/click/ContainerModel.java
+//
+// Tracks which slots of the open container hold predicted (not yet
+// confirmed) contents, so several dependent clicks can be sent in one tick.
+//
+// handleContainerInput already applies the click to the client menu and
+// sends the predicted slots along with it; the server only replies for
+// slots where its result differs. So after send() the menu *is* the
+// prediction, and this class records which slots changed and what they
+// were predicted to hold:
+//
+//   - a server slot update for a pending slot that matches -> confirmed
+//   - one that doesn't match, on a slot the container owns -> a server-side
+//     change, not a rejection: machines consume what was just fed, furnaces
+//     smelt, plugin GUIs redraw. The prediction is dropped, nothing else.
+//   - one that doesn't match on a player inventory slot, or a full resync
+//     over pending slots (what the server sends when it rejects a click) ->
+//     desync: vanilla has already put the server's contents in the menu,
+//     every prediction built on top is dropped, callers see isRolledBack()
+//     and abort the rest of their pipeline, and ClickPacer backs off
+//   - no reply within ClickPacer's settle time -> confirmed
+//
+// send() snapshots each slot's stack reference and count, not a copy, so
+// only the slots a click actually changed are copied.
+//
+// Client thread only.
+// ============================================
+package com.bapelauto.click;
+
+import com.bapelauto.util.Log;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerInput;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public final class ContainerModel {
+
+    private final ClickPacer pacer;
+
+    private int containerId = -1;
+    private final Map<Integer, Prediction> pending = new HashMap<>();
+    // Reused snapshot buffers: stack reference and count per slot
+    private ItemStack[] before = new ItemStack[0];
+    private int[] beforeCount = new int[0];
+    private boolean rolledBack = false;
+
+    private long clicks = 0;
+    private long confirmed = 0;
+    private long desyncs = 0;
+    private long serverChanges = 0;
+
+    public ContainerModel(ClickPacer pacer) {
+        this.pacer = pacer;
+    }
+
+    /**
+     * Start a pipeline of dependent clicks on this menu. Returns false if
+     * there is no player to click with.
+     */
+    public boolean begin(Minecraft client, AbstractContainerMenu menu) {
+        if (client.gameMode == null || client.player == null) return false;
+        track(menu);
+        settle(System.currentTimeMillis());
+        rolledBack = false;
+        return true;
+    }
+
+    /**
+     * Send one container input, recording the slots it is predicted to change.
+     * Returns false (and sends nothing) once the pipeline has been rolled back.
+     */
+    public boolean send(Minecraft client, AbstractContainerMenu menu, int slotId, int button, ContainerInput input) {
+        if (rolledBack || client.gameMode == null || client.player == null) return false;
+        track(menu);
+
+        int size = menu.slots.size();
+        if (before.length < size) {
+            before = new ItemStack[size];
+            beforeCount = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = menu.getSlot(i).getItem();
+            before[i] = stack;
+            beforeCount[i] = stack.getCount();
+        }
+
+        client.gameMode.handleContainerInput(menu.containerId, slotId, button, input, client.player);
+        clicks++;
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            ItemStack after = menu.getSlot(i).getItem();
+            if (after != before[i] || after.getCount() != beforeCount[i]) {
+                pending.put(i, new Prediction(after.copy(), now));
+            }
+            before[i] = null;
+        }
+        return true;
+    }
+
+    /**
+     * The cursor stack as predicted after the clicks sent so far
+     */
+    public ItemStack getCarried(AbstractContainerMenu menu) {
+        return menu.getCarried();
+    }
+
+    /**
+     * A desync happened since begin(); the caller should stop its pipeline
+     */
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    /**
+     * Server updated one slot (ClientPacketListenerMixin, after vanilla
+     * applied it to the menu)
+     */
+    public void onServerSlot(int containerId, int slotId) {
+        if (containerId != this.containerId) return;
+        Prediction prediction = pending.remove(slotId);
+        if (prediction == null) return;
+
+        AbstractContainerMenu menu = currentMenu();
+        if (menu == null || slotId < 0 || slotId >= menu.slots.size()) return;
+        Slot slot = menu.getSlot(slotId);
+        if (ItemStack.matches(prediction.stack, slot.getItem())) {
+            confirmed++;
+        } else if (!(slot.container instanceof Inventory)) {
+            serverChanges++; // The container changed it itself
+        } else {
+            desync("slot " + slotId);
+        }
+    }
+
+    /**
+     * Server replaced the whole container (ClientPacketListenerMixin)
+     */
+    public void onServerContent(int containerId) {
+        if (containerId != this.containerId || pending.isEmpty()) return;
+
+        AbstractContainerMenu menu = currentMenu();
+        if (menu == null) {
+            pending.clear();
+            return;
+        }
+        for (Map.Entry<Integer, Prediction> e : pending.entrySet()) {
+            int slot = e.getKey();
+            if (slot >= menu.slots.size() || !ItemStack.matches(e.getValue().stack, menu.getSlot(slot).getItem())) {
+                desync("resync over slot " + slot);
+                return;
+            }
+        }
+        confirmed += pending.size();
+        pending.clear();
+    }
+
+    private void desync(String where) {
+        desyncs++;
+        pending.clear();
+        rolledBack = true;
+        pacer.onCorrection();
+        Log.warn("[ContainerModel] Prediction rejected by server (" + where + "), rolled back");
+    }
+
+    private void track(AbstractContainerMenu menu) {
+        if (menu.containerId != containerId) {
+            containerId = menu.containerId;
+            pending.clear();
+        }
+    }
+
+    // Predictions nobody contradicted within a round trip were applied
+    private void settle(long now) {
+        long settle = pacer.getSettleMillis();
+        Iterator<Prediction> it = pending.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().predictedAt > settle) {
+                it.remove();
+                confirmed++;
+            }
+        }
+    }
+
+    private static AbstractContainerMenu currentMenu() {
+        Minecraft client = Minecraft.getInstance();
+        return client.player != null ? client.player.containerMenu : null;
+    }
+
+    public int getPendingCount() { return pending.size(); }
+    public long getClickCount() { return clicks; }
+    public long getConfirmedCount() { return confirmed; }
+    public long getDesyncCount() { return desyncs; }
+    /** Pending container slots the server changed itself (not rejections) */
+    public long getServerChangeCount() { return serverChanges; }
+
+    private static final class Prediction {
+        final ItemStack stack;
+        final long predictedAt;
+
+        Prediction(ItemStack stack, long predictedAt) {
+            this.stack = stack;
+            this.predictedAt = predictedAt;
+        }
+    }
+}
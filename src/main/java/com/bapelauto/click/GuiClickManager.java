@@ -10,28 +10,49 @@
 package com.bapelauto.click;
 
 import com.bapelauto.util.ChatUtil;
+import com.bapelauto.util.Log;
+
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.ShardedConfigManager;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerInput;
+import net.minecraft.world.inventory.ResultSlot;
 import net.minecraft.world.inventory.Slot;
 import net.minecraft.network.chat.Component;
 import net.minecraft.sounds.SoundEvents;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 public class GuiClickManager {
+    private static final String PROGRAMS_DIR = "config/bapelauto/programs";
+    
     private final List<ClickTarget> capturedTargets = new ArrayList<>();
     private final MacroRecorder macroRecorder = new MacroRecorder();
+    private final MacroLibrary macroLibrary = new MacroLibrary();
     private final ClickExecutor clickExecutor = new ClickExecutor();
+    private final ClickScheduler clickScheduler = new ClickScheduler();
+    private MacroPlayer macroPlayer; // Set while in MACRO_REPLAY mode
+    private ClickProgramRunner programRunner; // Set while in PROGRAM mode
+    
+    // Cap per pump so a zero delay can't lock up the client thread
+    private static final int MAX_CLICKS_PER_PUMP = 20;
     
     private ClickMode currentMode = ClickMode.SINGLE_POINT;
     private TimingPattern timingPattern = TimingPattern.FIXED;
     
     private boolean isActive = false;
     private int currentTargetIndex = 0;
-    private long lastClickTime = 0;
     
     // Timing settings
     private long baseDelay = 100;
@@ -41,6 +62,29 @@ public class GuiClickManager {
     private long burstPause = 2000;
     private int currentBurstCounter = 0;
     
+    // Macro replay settings
+    private double macroSpeed = 1.0;
+    private boolean compressMacroWaits = false;
+    private long macroWaitFloor = 50;
+    private boolean optimizeMacros = true;
+    private boolean mergeQuickMoves = false;
+    private int keepRecordings = 10; // Automatic recordings kept in the macro library
+    // Menu the current recording started in (see captureRecordedMenu)
+    private int recordedMenuSlots = -1;
+    private final BitSet recordedPlainSlots = new BitSet();
+    
+    private ShardedConfigManager boundConfig;
+    private ShardedConfigManager.LongKey baseDelayKey;
+    private ShardedConfigManager.EnumKey<TimingPattern> timingPatternKey;
+    private ShardedConfigManager.IntKey macroSpeedKey;
+    private ShardedConfigManager.BooleanKey compressMacroWaitsKey;
+    private ShardedConfigManager.LongKey macroWaitFloorKey;
+    private ShardedConfigManager.StringKey clickProgramKey;
+    private ShardedConfigManager.StringKey activeMacroKey;
+    private ShardedConfigManager.BooleanKey optimizeMacrosKey;
+    private ShardedConfigManager.BooleanKey mergeQuickMovesKey;
+    private ShardedConfigManager.IntKey keepRecordingsKey;
+    
     public void captureTarget(Minecraft client, long defaultDelay) {
         if (client.screen == null) return;
         
@@ -75,6 +119,14 @@ public class GuiClickManager {
             }
         } else {
             // Normal capture mode
+            if (currentMode == ClickMode.MACRO_REPLAY || currentMode == ClickMode.PROGRAM) {
+                // Adding a point turns a replay or program back into a plain sequence
+                capturedTargets.clear();
+                macroPlayer = null;
+                programRunner = null;
+                isActive = false;
+                clickScheduler.stop();
+            }
             capturedTargets.add(newTarget);
             updateMode();
             
@@ -85,6 +137,15 @@ public class GuiClickManager {
         }
     }
     
+    /**
+     * Real slot input from the open container screen (see InventoryScreenMixin)
+     */
+    public void onSlotInput(Minecraft client, int slotId, int button, ContainerInput input) {
+        if (macroRecorder.recordInput(slotId, button, input) && client.player != null) {
+            ChatUtil.displayClientMessage(client, Component.literal("§a[Recording] Step " + macroRecorder.getActionCount() + " §7(" + input + ")"), true);
+        }
+    }
+    
     private void updateMode() {
         if (capturedTargets.isEmpty()) {
             currentMode = ClickMode.SINGLE_POINT;
@@ -98,27 +159,215 @@ public class GuiClickManager {
     }
     
     public void startRecording(Minecraft client) {
+        if (!macroRecorder.isRecording()) {
+            captureRecordedMenu(client);
+        }
         macroRecorder.startRecording(client);
     }
     
+    // Layout of the menu the recording is made in, for the optimizer: the
+    // screen may have changed by the time recording stops
+    private void captureRecordedMenu(Minecraft client) {
+        recordedPlainSlots.clear();
+        recordedMenuSlots = -1;
+        if (!(client.screen instanceof AbstractContainerScreen<?> screen)) return;
+        
+        AbstractContainerMenu menu = screen.getMenu();
+        recordedMenuSlots = menu.slots.size();
+        for (int i = 0; i < recordedMenuSlots; i++) {
+            Slot slot = menu.slots.get(i);
+            if (slot.container instanceof Inventory && !(slot instanceof ResultSlot)) {
+                recordedPlainSlots.set(i);
+            }
+        }
+    }
+    
     public void stopRecording(Minecraft client) {
+        if (!macroRecorder.isRecording()) {
+            macroRecorder.stopRecording(client); // Just reports "not recording"
+            return;
+        }
         macroRecorder.stopRecording(client);
         
         if (macroRecorder.getActionCount() > 0) {
-            capturedTargets.clear();
-            capturedTargets.addAll(macroRecorder.getTargetsFromMacro());
-            currentMode = ClickMode.MACRO_REPLAY;
-            currentTargetIndex = 0;
-            isActive = false;
+            if (optimizeMacros) optimizeRecording(client);
             
+            // The last few recordings survive restarts and clearTargets()
+            if (keepRecordings > 0) {
+                try {
+                    String name = macroLibrary.saveRecording(macroRecorder.getRecordedActions(), keepRecordings);
+                    if (client.player != null) {
+                        ChatUtil.displayClientMessage(client, Component.literal("§7[Macro] Saved as " + name), false);
+                    }
+                } catch (IOException e) {
+                    Log.error("[MacroLibrary] Failed to save recording", e);
+                }
+            }
+            useRecordedMacro(client);
+        }
+    }
+    
+    // Rewrite the recording with fewer packets, reporting what was saved
+    private void optimizeRecording(Minecraft client) {
+        MacroOptimizer.Result result = MacroOptimizer.optimize(
+            macroRecorder.getRecordedActions(), recordedMenuSlots, recordedPlainSlots, mergeQuickMoves);
+        if (result.getPacketsSaved() == 0 || result.actions.isEmpty()) return;
+        
+        macroRecorder.loadActions(result.actions);
+        Log.info("[Macro] Optimized recording: " + result);
+        if (client.player != null) {
+            ChatUtil.displayClientMessage(client, Component.literal("§7[Macro] Optimized: " + result), false);
+        }
+    }
+    
+    // Switch to replaying whatever MacroRecorder currently holds
+    private void useRecordedMacro(Minecraft client) {
+        capturedTargets.clear();
+        capturedTargets.addAll(macroRecorder.getTargetsFromMacro());
+        macroPlayer = macroRecorder.createPlayer();
+        programRunner = null;
+        applyMacroSettings();
+        currentMode = ClickMode.MACRO_REPLAY;
+        currentTargetIndex = 0;
+        isActive = false;
+        clickScheduler.stop();
+        
+        if (client.player != null) {
+            ChatUtil.displayClientMessage(client, Component.literal(String.format(
+                "§e[Macro] Ready to replay (%.1fx, %.1fs/loop) - Press [=] to start",
+                macroSpeed, macroPlayer.getLoopMillis() / 1000.0)), true);
+        }
+    }
+    
+    /**
+     * Save the current macro - or the captured targets, spaced by their
+     * delays - to the macro library
+     */
+    public boolean saveMacro(Minecraft client, String name) {
+        List<MacroAction> actions;
+        if (currentMode == ClickMode.MACRO_REPLAY && macroRecorder.getActionCount() > 0) {
+            actions = macroRecorder.getRecordedActions();
+        } else {
+            actions = new ArrayList<>();
+            long timestamp = 0;
+            for (ClickTarget target : capturedTargets) {
+                actions.add(new MacroAction(timestamp, target));
+                timestamp += target.customDelay > 0 ? target.customDelay : baseDelay;
+            }
+        }
+        if (actions.isEmpty()) {
+            if (client.player != null) {
+                ChatUtil.displayClientMessage(client, Component.literal("§c[Macro] Nothing to save - capture targets or record first"), true);
+            }
+            return false;
+        }
+        
+        try {
+            macroLibrary.save(name, actions);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.error("[MacroLibrary] Failed to save " + name, e);
+            if (client.player != null) {
+                ChatUtil.displayClientMessage(client, Component.literal("§c[Macro] Save failed: " + e.getMessage()), false);
+            }
+            return false;
+        }
+        if (client.player != null) {
+            ChatUtil.displayClientMessage(client, Component.literal("§a[Macro] Saved " + name + " (" + actions.size() + " actions)"), true);
+        }
+        return true;
+    }
+    
+    /**
+     * Print the saved macros to chat (read from the library index only)
+     */
+    public void showMacroList(Minecraft client) {
+        if (client.player == null) return;
+        List<MacroLibrary.MacroInfo> macros = macroLibrary.list();
+        if (macros.isEmpty()) {
+            ChatUtil.displayClientMessage(client, Component.literal("§7[Macro] No saved macros"), false);
+            return;
+        }
+        ChatUtil.displayClientMessage(client, Component.literal("§e[Macro] " + macros.size() + " saved:"), false);
+        for (MacroLibrary.MacroInfo info : macros) {
+            ChatUtil.displayClientMessage(client, Component.literal(String.format(
+                "§7  %s §8- %d actions, %.1fs", info.name, info.actionCount, info.durationMs / 1000.0)), false);
+        }
+    }
+    
+    /**
+     * Load a saved macro from the library and get it ready to replay
+     */
+    public boolean loadMacro(Minecraft client, String name) {
+        if (name == null || name.isBlank()) return false;
+        List<MacroAction> actions;
+        try {
+            actions = macroLibrary.load(name);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.warn("[MacroLibrary] Failed to load " + name + ": " + e.getMessage());
             if (client.player != null) {
-                ChatUtil.displayClientMessage(client, Component.literal("§e[Macro] Ready to replay - Press [=] to start"), true);
+                ChatUtil.displayClientMessage(client, Component.literal("§c[Macro] Cannot load " + name + ": " + e.getMessage()), false);
             }
+            return false;
         }
+        if (actions.isEmpty()) return false;
+        
+        macroRecorder.loadActions(actions);
+        useRecordedMacro(client);
+        return true;
+    }
+    
+    public MacroLibrary getMacroLibrary() { return macroLibrary; }
+    
+    /**
+     * Compile config/bapelauto/programs/<name>.clk and switch to PROGRAM mode.
+     * An empty name unloads the current program.
+     */
+    public boolean loadProgram(Minecraft client, String name) {
+        if (name == null || name.isBlank()) {
+            if (programRunner != null) {
+                programRunner = null;
+                isActive = false;
+                clickScheduler.stop();
+                updateMode();
+            }
+            return false;
+        }
+        
+        Path path = Paths.get(PROGRAMS_DIR, name.trim() + ".clk");
+        ClickProgram program;
+        try {
+            program = ClickProgram.compile(name.trim(), Files.readString(path));
+        } catch (IOException e) {
+            Log.warn("[ClickProgram] Cannot read " + path + ": " + e.getMessage());
+            if (client.player != null) {
+                ChatUtil.displayClientMessage(client, Component.literal("§c[Program] Not found: " + path), false);
+            }
+            return false;
+        } catch (IllegalArgumentException e) {
+            Log.warn("[ClickProgram] " + name + ": " + e.getMessage());
+            if (client.player != null) {
+                ChatUtil.displayClientMessage(client, Component.literal("§c[Program] " + name + ", " + e.getMessage()), false);
+            }
+            return false;
+        }
+        
+        programRunner = new ClickProgramRunner(program);
+        macroPlayer = null;
+        capturedTargets.clear();
+        currentMode = ClickMode.PROGRAM;
+        currentTargetIndex = 0;
+        isActive = false;
+        clickScheduler.stop();
+        Log.info("[ClickProgram] Loaded " + name + " (" + program.size() + " instructions)");
+        
+        if (client.player != null) {
+            ChatUtil.displayClientMessage(client, Component.literal("§e[Program] " + name + " ready - Press [=] to start"), true);
+        }
+        return true;
     }
     
     public void toggle(Minecraft client) {
-        if (capturedTargets.isEmpty()) {
+        if (capturedTargets.isEmpty() && programRunner == null) {
             if (client.player != null) {
                 ChatUtil.displayClientMessage(client, Component.literal("§c[Click] No targets! Press [-] to capture"), false);
             }
@@ -131,7 +380,10 @@ public class GuiClickManager {
         if (isActive) {
             currentTargetIndex = 0;
             currentBurstCounter = 0;
-            lastClickTime = System.currentTimeMillis();
+            if (programRunner != null) programRunner.reset();
+            clickScheduler.start(System.nanoTime());
+        } else {
+            clickScheduler.stop();
         }
         
         if (client.player != null) {
@@ -143,35 +395,109 @@ public class GuiClickManager {
     }
     
     public void tick(Minecraft client) {
-        if (!isActive || capturedTargets.isEmpty()) return;
+        pump(client);
+    }
+    
+    /**
+     * Called after every rendered frame of a container screen, so clicks
+     * land between ticks when the delay is shorter than a tick
+     */
+    public void onFrame(Minecraft client) {
+        pump(client);
+    }
+    
+    // Fire every click whose deadline has passed (up to the cap)
+    private void pump(Minecraft client) {
+        if (!isActive) return;
         if (client.screen == null) return;
         
-        long currentTime = System.currentTimeMillis();
-        long effectiveDelay = timingPattern.calculateDelay(
-            baseDelay, minDelay, maxDelay, 
-            currentTargetIndex, burstCount, burstPause, currentBurstCounter
-        );
+        long now = System.nanoTime();
+        if (programRunner != null) {
+            pumpProgram(client, now);
+            return;
+        }
+        if (capturedTargets.isEmpty()) return;
         
-        if ((currentTime - lastClickTime) >= effectiveDelay) {
+        ClickPacer pacer = AutoBotMod.getClickPacer();
+        AbstractContainerMenu menu = client.screen instanceof AbstractContainerScreen<?> containerScreen
+            ? containerScreen.getMenu() : null;
+        boolean sentSlotClicks = false; // This pump's slot clicks are one pacer batch
+        for (int fired = 0; fired < MAX_CLICKS_PER_PUMP && clickScheduler.isDue(now); fired++) {
             ClickTarget target = capturedTargets.get(currentTargetIndex);
+            boolean slotClick = target.type == ClickTarget.Type.SLOT && menu != null;
             
-            if (clickExecutor.executeClick(client, target)) {
-                lastClickTime = currentTime;
-                
-                // Update burst counter
-                if (timingPattern == TimingPattern.BURST) {
-                    currentBurstCounter++;
-                    if (currentBurstCounter >= burstCount) {
-                        currentBurstCounter = 0;
-                    }
-                }
-                
-                // Advance index
-                currentTargetIndex++;
-                if (currentTargetIndex >= capturedTargets.size()) {
-                    currentTargetIndex = 0; // Loop
+            // Hold slot clicks while the server hasn't caught up
+            if (slotClick && !sentSlotClicks && !pacer.canSend(menu)) break;
+            
+            if (!clickExecutor.executeClick(client, target)) {
+                clickScheduler.retry(now);
+                break;
+            }
+            sentSlotClicks |= slotClick;
+            
+            // Update burst counter: the pause comes after the last click of a burst
+            boolean burstDone = false;
+            if (timingPattern == TimingPattern.BURST) {
+                currentBurstCounter++;
+                if (currentBurstCounter >= burstCount) {
+                    burstDone = true;
+                    currentBurstCounter = 0;
                 }
             }
+            
+            // Advance index
+            currentTargetIndex++;
+            if (currentTargetIndex >= capturedTargets.size()) {
+                currentTargetIndex = 0; // Loop
+            }
+            
+            if (currentMode == ClickMode.MACRO_REPLAY && macroPlayer != null) {
+                // Recorded pacing instead of the timing pattern
+                clickScheduler.clickedNanos(now, macroPlayer.gapBeforeNanos(currentTargetIndex));
+                continue;
+            }
+            
+            long nextDelay = timingPattern.calculateDelay(
+                baseDelay, minDelay, maxDelay,
+                currentTargetIndex, burstCount, burstPause, burstDone ? burstCount : currentBurstCounter
+            );
+            clickScheduler.clicked(now, pacer.pace(nextDelay));
+        }
+        if (sentSlotClicks) pacer.onSent(menu);
+    }
+    
+    private void pumpProgram(Minecraft client, long now) {
+        if (!(client.screen instanceof AbstractContainerScreen<?> screen)) return;
+        
+        // Each CLICK is spaced like a captured target click
+        ClickPacer pacer = AutoBotMod.getClickPacer();
+        long clickGapNanos = pacer.pace(baseDelay) * 1_000_000L;
+        int clicks = 0;
+        long wait = 0;
+        while (clicks < MAX_CLICKS_PER_PUMP && clickScheduler.isDue(now)) {
+            wait = programRunner.run(client, screen, clickExecutor, pacer, MAX_CLICKS_PER_PUMP - clicks, clickGapNanos);
+            int ran = programRunner.getClicksLastRun();
+            clicks += ran;
+            if (wait == ClickProgramRunner.HALTED) {
+                for (int i = 0; i < ran; i++) clickScheduler.recordClick(now);
+                break;
+            }
+            if (ran > 0) {
+                for (int i = 1; i < ran; i++) clickScheduler.recordClick(now);
+                clickScheduler.clickedNanos(now, wait); // Feeds the target rate
+            } else {
+                clickScheduler.advance(wait);
+            }
+            if (wait == 0) break; // Held by the pacer or a missing slot - next pump
+        }
+        if (clicks > 0) pacer.onSent(screen.getMenu()); // One batch per pump
+        
+        if (wait == ClickProgramRunner.HALTED) {
+            isActive = false;
+            clickScheduler.stop();
+            if (client.player != null) {
+                ChatUtil.displayClientMessage(client, Component.literal("§e[Program] " + programRunner.getProgram().getName() + " finished"), true);
+            }
         }
     }
     
@@ -180,6 +506,9 @@ public class GuiClickManager {
         macroRecorder.clear();
         currentTargetIndex = 0;
         isActive = false;
+        clickScheduler.stop();
+        macroPlayer = null;
+        programRunner = null;
         currentMode = ClickMode.SINGLE_POINT;
     }
     
@@ -197,13 +526,72 @@ public class GuiClickManager {
         return null;
     }
     
+    private void bindConfig(ShardedConfigManager config) {
+        if (boundConfig == config) return;
+        boundConfig = config;
+        baseDelayKey = config.longKey("targetClickDelay", 100, v -> baseDelay = v);
+        timingPatternKey = config.enumKey("timingPattern", TimingPattern.class, TimingPattern.FIXED, v -> timingPattern = v);
+        macroSpeedKey = config.intKey("macroSpeed", 100, v -> setMacroSpeed(v / 100.0));
+        compressMacroWaitsKey = config.booleanKey("macroCompressWaits", false, this::setCompressMacroWaits);
+        macroWaitFloorKey = config.longKey("macroWaitFloor", 50, this::setMacroWaitFloor);
+        clickProgramKey = config.stringKey("clickProgram", "", v -> loadProgram(Minecraft.getInstance(), v));
+        activeMacroKey = config.stringKey("activeMacro", "", v -> loadMacro(Minecraft.getInstance(), v));
+        optimizeMacrosKey = config.booleanKey("macroOptimize", true, v -> optimizeMacros = v);
+        mergeQuickMovesKey = config.booleanKey("macroMergeQuickMoves", false, v -> mergeQuickMoves = v);
+        keepRecordingsKey = config.intKey("macroKeepRecordings", 10, v -> keepRecordings = Math.max(0, v));
+    }
+    
+    public void loadFromConfig(ShardedConfigManager config) {
+        bindConfig(config);
+        baseDelay = baseDelayKey.get();
+        timingPattern = timingPatternKey.get();
+        macroSpeed = MacroPlayer.clampSpeed(macroSpeedKey.get() / 100.0);
+        compressMacroWaits = compressMacroWaitsKey.get();
+        macroWaitFloor = Math.max(0, macroWaitFloorKey.get());
+        optimizeMacros = optimizeMacrosKey.get();
+        mergeQuickMoves = mergeQuickMovesKey.get();
+        keepRecordings = Math.max(0, keepRecordingsKey.get());
+        applyMacroSettings();
+        
+        String macroName = activeMacroKey.get();
+        if (!macroName.isBlank() && currentMode != ClickMode.MACRO_REPLAY) {
+            loadMacro(Minecraft.getInstance(), macroName);
+        }
+        
+        String programName = clickProgramKey.get();
+        if (!programName.isBlank() && (programRunner == null || !programRunner.getProgram().getName().equals(programName.trim()))) {
+            loadProgram(Minecraft.getInstance(), programName);
+        }
+    }
+    
+    public void saveToConfig(ShardedConfigManager config) {
+        bindConfig(config);
+        baseDelayKey.set(baseDelay);
+        timingPatternKey.set(timingPattern);
+        macroSpeedKey.set((int) Math.round(macroSpeed * 100));
+        compressMacroWaitsKey.set(compressMacroWaits);
+        macroWaitFloorKey.set(macroWaitFloor);
+    }
+    
+    private void applyMacroSettings() {
+        if (macroPlayer != null) {
+            macroPlayer.configure(macroSpeed, compressMacroWaits, macroWaitFloor);
+        }
+    }
+    
     // Getters and setters
     public boolean isActive() { return isActive; }
-    public boolean hasTargets() { return !capturedTargets.isEmpty(); }
+    public boolean hasTargets() { return !capturedTargets.isEmpty() || programRunner != null; }
     public int getTargetCount() { return capturedTargets.size(); }
+    public String getProgramName() { return programRunner != null ? programRunner.getProgram().getName() : null; }
     public ClickMode getCurrentMode() { return currentMode; }
     public TimingPattern getTimingPattern() { return timingPattern; }
+    public long getBaseDelay() { return baseDelay; }
     public int getTotalClicks() { return clickExecutor.getTotalClicks(); }
+    /** Clicks actually made in the last second */
+    public double getAchievedCps() { return clickScheduler.getAchievedCps(System.nanoTime()); }
+    /** Rate the configured timing asks for */
+    public double getTargetCps() { return clickScheduler.getTargetCps(); }
     
     public void setTimingPattern(TimingPattern pattern) { this.timingPattern = pattern; }
     public void setBaseDelay(long delay) { this.baseDelay = delay; }
@@ -212,7 +600,30 @@ public class GuiClickManager {
     public void setBurstCount(int count) { this.burstCount = count; }
     public void setBurstPause(long pause) { this.burstPause = pause; }
     
+    public double getMacroSpeed() { return macroSpeed; }
+    public boolean isCompressMacroWaits() { return compressMacroWaits; }
+    public long getMacroWaitFloor() { return macroWaitFloor; }
+    
+    /** Replay speed multiplier, clamped to 0.5x - 8x */
+    public void setMacroSpeed(double speed) {
+        this.macroSpeed = MacroPlayer.clampSpeed(speed);
+        applyMacroSettings();
+    }
+    
+    public void setCompressMacroWaits(boolean compress) {
+        this.compressMacroWaits = compress;
+        applyMacroSettings();
+    }
+    
+    public void setMacroWaitFloor(long floorMs) {
+        this.macroWaitFloor = Math.max(0, floorMs);
+        applyMacroSettings();
+    }
+    
     public String getStatusInfo() {
+        if (programRunner != null) {
+            return String.format("Program %s, %d instructions", programRunner.getProgram().getName(), programRunner.getProgram().size());
+        }
         if (capturedTargets.isEmpty()) return "No targets";
         return String.format("%d targets, %s mode", capturedTargets.size(), currentMode.getDisplayName());
     }
@@ -0,0 +1,350 @@
+// ============================================
+// FILE: MacroLibrary.java
+// Path: src/main/java/com/bapelauto/click/MacroLibrary.java
+//
+// Saved macros under config/bapelauto/macros.
+//
+//   <name>.bmac  - one macro: header, then one record per action
+//   index.bin    - name, action count, duration and save time of every
+//                  macro, so listing never opens the macro files
+//
+// Macro file (all integers unsigned LEB128 varints unless noted):
+//   "BMAC" version:u8 count duration
+//   per action: tag:u8 delay ...
+//     tag 0 SLOT : slot(zigzag) input:u8 button
+//     tag 1 POINT: x:f32 y:f32
+// delay is milliseconds since the previous action, so typical records are
+// 4-5 bytes. A macro is loaded with a single read of the whole file.
+//
+// The index is rewritten (temp file + atomic move) on every save/delete and
+// rebuilt from the macro headers if it is missing or unreadable.
+//
+// Automatic recordings are saved as recording_<timestamp>, with a _2, _3...
+// suffix when two land in the same second, and only the newest few are
+// kept. Rename one to anything else to keep it for good.
+// ============================================
+package com.bapelauto.click;
+
+import com.bapelauto.util.Log;
+
+import net.minecraft.world.inventory.ContainerInput;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+public final class MacroLibrary {
+
+    private static final String MACRO_DIR = "config/bapelauto/macros";
+    private static final String EXTENSION = ".bmac";
+    private static final String RECORDING_PREFIX = "recording_";
+    private static final int MAGIC = 0x424D4143; // "BMAC"
+    private static final int INDEX_MAGIC = 0x424D4958; // "BMIX"
+    private static final int VERSION = 1;
+
+    private static final int TAG_SLOT = 0;
+    private static final int TAG_POINT = 1;
+    private static final ContainerInput[] INPUTS = ContainerInput.values();
+
+    private final Path dir;
+    private final Path indexFile;
+
+    // Loaded lazily from the index, sorted by name
+    private Map<String, MacroInfo> index;
+
+    public MacroLibrary() {
+        this(Paths.get(MACRO_DIR));
+    }
+
+    MacroLibrary(Path dir) {
+        this.dir = dir;
+        this.indexFile = dir.resolve("index.bin");
+    }
+
+    /**
+     * Save (or replace) a macro
+     */
+    public synchronized void save(String name, List<MacroAction> actions) throws IOException {
+        String safe = safeName(name);
+        byte[] data = encode(actions);
+
+        Files.createDirectories(dir);
+        writeAtomically(dir.resolve(safe + EXTENSION), data);
+
+        loadIndex();
+        long duration = actions.isEmpty() ? 0 : actions.get(actions.size() - 1).timestamp;
+        index.put(safe, new MacroInfo(safe, actions.size(), duration, System.currentTimeMillis()));
+        writeIndex();
+        Log.info("[MacroLibrary] Saved " + safe + " (" + actions.size() + " actions, " + data.length + " bytes)");
+    }
+
+    /**
+     * Load a macro in one read
+     */
+    public synchronized List<MacroAction> load(String name) throws IOException {
+        Path file = dir.resolve(safeName(name) + EXTENSION);
+        if (!Files.exists(file)) {
+            throw new FileNotFoundException("No macro named " + name);
+        }
+        return decode(Files.readAllBytes(file));
+    }
+
+    public synchronized boolean delete(String name) throws IOException {
+        String safe = safeName(name);
+        boolean deleted = Files.deleteIfExists(dir.resolve(safe + EXTENSION));
+        loadIndex();
+        if (index.remove(safe) != null || deleted) {
+            writeIndex();
+        }
+        return deleted;
+    }
+
+    /**
+     * All saved macros by name, from the index alone
+     */
+    public synchronized List<MacroInfo> list() {
+        try {
+            loadIndex();
+        } catch (IOException e) {
+            Log.error("[MacroLibrary] Failed to read macro index", e);
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(index.values());
+    }
+
+    public synchronized boolean exists(String name) {
+        return list().stream().anyMatch(m -> m.name.equals(safeName(name)));
+    }
+
+    /**
+     * Save an automatic recording under a fresh recording_<timestamp> name,
+     * then delete the oldest recordings beyond keep. Returns the name used.
+     */
+    public synchronized String saveRecording(List<MacroAction> actions, int keep) throws IOException {
+        loadIndex();
+        String base = RECORDING_PREFIX + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        String name = base;
+        for (int n = 2; index.containsKey(name) || Files.exists(dir.resolve(name + EXTENSION)); n++) {
+            name = base + "_" + n;
+        }
+        save(name, actions);
+        pruneRecordings(keep);
+        return name;
+    }
+
+    private void pruneRecordings(int keep) throws IOException {
+        List<MacroInfo> recordings = new ArrayList<>();
+        for (MacroInfo info : index.values()) {
+            if (info.name.startsWith(RECORDING_PREFIX)) recordings.add(info);
+        }
+        if (recordings.size() <= keep) return;
+
+        recordings.sort(Comparator.comparingLong(info -> info.savedAt));
+        for (int i = 0; i < recordings.size() - keep; i++) {
+            String name = recordings.get(i).name;
+            Files.deleteIfExists(dir.resolve(name + EXTENSION));
+            index.remove(name);
+        }
+        writeIndex();
+        Log.info("[MacroLibrary] Pruned " + (recordings.size() - keep) + " old recording(s)");
+    }
+
+    // ===== Index =====
+
+    private void loadIndex() throws IOException {
+        if (index != null) return;
+        index = new TreeMap<>();
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(indexFile)))) {
+                if (in.readInt() != INDEX_MAGIC) throw new IOException("bad index magic");
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    MacroInfo info = new MacroInfo(in.readUTF(), in.readInt(), in.readLong(), in.readLong());
+                    index.put(info.name, info);
+                }
+                return;
+            } catch (IOException e) {
+                Log.warn("[MacroLibrary] Macro index unreadable, rebuilding: " + e.getMessage());
+                index.clear();
+            }
+        }
+        rebuildIndex();
+    }
+
+    // Only the header of each macro is decoded
+    private void rebuildIndex() throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 32)) {
+                    ByteBuffer header = ByteBuffer.wrap(in.readNBytes(24)).order(ByteOrder.BIG_ENDIAN);
+                    checkHeader(header);
+                    int count = readVarInt(header);
+                    long duration = readVarLong(header);
+                    index.put(name, new MacroInfo(name, count, duration, Files.getLastModifiedTime(file).toMillis()));
+                } catch (IOException | RuntimeException e) {
+                    Log.warn("[MacroLibrary] Skipping unreadable macro " + fileName + ": " + e.getMessage());
+                }
+            }
+        }
+        if (!index.isEmpty()) writeIndex();
+    }
+
+    private void writeIndex() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(index.size());
+            for (MacroInfo info : index.values()) {
+                out.writeUTF(info.name);
+                out.writeInt(info.actionCount);
+                out.writeLong(info.durationMs);
+                out.writeLong(info.savedAt);
+            }
+        }
+        Files.createDirectories(dir);
+        writeAtomically(indexFile, bytes.toByteArray());
+    }
+
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, data);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // ===== Encoding =====
+
+    static byte[] encode(List<MacroAction> actions) {
+        // Worst case per action: tag + 10-byte delay + 5-byte slot + input + 5-byte button
+        ByteBuffer buf = ByteBuffer.allocate(32 + actions.size() * 22).order(ByteOrder.BIG_ENDIAN);
+        buf.putInt(MAGIC);
+        buf.put((byte) VERSION);
+        writeVarLong(buf, actions.size());
+        writeVarLong(buf, actions.isEmpty() ? 0 : Math.max(0, actions.get(actions.size() - 1).timestamp));
+
+        long previous = 0;
+        for (MacroAction action : actions) {
+            ClickTarget target = action.target;
+            buf.put((byte) (target.type == ClickTarget.Type.SLOT ? TAG_SLOT : TAG_POINT));
+            writeVarLong(buf, Math.max(0, action.getRelativeDelay(previous)));
+            previous = Math.max(previous, action.timestamp);
+
+            if (target.type == ClickTarget.Type.SLOT) {
+                writeVarLong(buf, zigzag(target.slotId));
+                buf.put((byte) target.input.ordinal());
+                writeVarLong(buf, target.button);
+            } else {
+                buf.putFloat((float) target.x);
+                buf.putFloat((float) target.y);
+            }
+        }
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
+    static List<MacroAction> decode(byte[] data) throws IOException {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+            checkHeader(buf);
+            int count = readVarInt(buf);
+            readVarLong(buf); // Duration, only needed by the index
+
+            List<MacroAction> actions = new ArrayList<>(count);
+            long timestamp = 0;
+            for (int i = 0; i < count; i++) {
+                int tag = buf.get();
+                timestamp += readVarLong(buf);
+                ClickTarget target;
+                if (tag == TAG_SLOT) {
+                    int slot = unzigzag((int) readVarLong(buf));
+                    int input = buf.get();
+                    int button = readVarInt(buf);
+                    if (input < 0 || input >= INPUTS.length) throw new IOException("bad input type " + input);
+                    target = new ClickTarget(slot, button, INPUTS[input], 0);
+                } else if (tag == TAG_POINT) {
+                    target = new ClickTarget(buf.getFloat(), buf.getFloat(), 0);
+                } else {
+                    throw new IOException("bad action tag " + tag);
+                }
+                actions.add(new MacroAction(timestamp, target));
+            }
+            return actions;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated macro file");
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buf) throws IOException {
+        if (buf.getInt() != MAGIC) throw new IOException("not a macro file");
+        int version = buf.get();
+        if (version != VERSION) throw new IOException("unsupported macro version " + version);
+    }
+
+    private static void writeVarLong(ByteBuffer buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buf) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("varint too long");
+    }
+
+    private static int readVarInt(ByteBuffer buf) throws IOException {
+        long value = readVarLong(buf);
+        if (value > Integer.MAX_VALUE) throw new IOException("varint out of range");
+        return (int) value;
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static String safeName(String name) {
+        String safe = name == null ? "" : name.trim().replaceAll("[^A-Za-z0-9_.-]", "_");
+        if (safe.isEmpty() || safe.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid macro name: " + name);
+        }
+        return safe;
+    }
+
+    public static final class MacroInfo {
+        public final String name;
+        public final int actionCount;
+        public final long durationMs;
+        public final long savedAt;
+
+        MacroInfo(String name, int actionCount, long durationMs, long savedAt) {
+            this.name = name;
+            this.actionCount = actionCount;
+            this.durationMs = durationMs;
+            this.savedAt = savedAt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Macro[%s, %d actions, %.1fs]", name, actionCount, durationMs / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+// ============================================
+// FILE: MacroOptimizer.java
+// Path: src/main/java/com/bapelauto/click/MacroOptimizer.java
+//
+// Peephole pass over a recorded macro that removes packets the server
+// doesn't need. Every slot action is one container-click packet, so fewer
+// actions means a shorter replay and more headroom under click limits.
+//
+// The optimizer can't see item contents, so it only applies rewrites that
+// hold whatever is in the slots. It tracks one fact: whether the cursor is
+// known to be empty. Recordings are assumed to start with an empty cursor.
+//
+// A click is only a plain item move on a storage slot. A crafting result
+// slot crafts again on every click, and in server plugin GUIs (Slimefun
+// chest menus and the like) a slot click is a button press. So the rules
+// that look at a slot only apply to the player's own inventory slots of
+// the menu the macro was recorded in (the caller passes their indices).
+//
+//   - PICKUP s, PICKUP s (left button, empty cursor, s plain): picks the
+//     stack up and puts it straight back - both dropped.
+//   - PICKUP outside the window with an empty cursor: drops nothing - dropped.
+//   - QUICK_MOVE s repeated within one server tick (s plain): the slot
+//     can't have refilled yet - the repeats are dropped.
+//   - PICKUP s, PICKUP t across the container/player boundary with an
+//     empty cursor: one QUICK_MOVE s. Only with mergeQuickMoves, since
+//     QUICK_MOVE picks the destination slot itself and may not use t.
+//
+// Removed actions also remove their wait, so later actions move earlier by
+// the same amount and the relative pacing of what remains is unchanged.
+// ============================================
+package com.bapelauto.click;
+
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerInput;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+final class MacroOptimizer {
+
+    // One server tick: a slot emptied by QUICK_MOVE can't refill faster
+    private static final long SAME_TICK_MS = 50;
+    private static final int PLAYER_INVENTORY_SLOTS = 36;
+
+    private MacroOptimizer() {}
+
+    /**
+     * @param menuSlots  slot count of the menu the macro was recorded in, or
+     *                   -1 if unknown (disables QUICK_MOVE merging)
+     * @param plainSlots slots of that menu where a click only moves items
+     *                   (empty if unknown: only the outside-click rule applies)
+     */
+    static Result optimize(List<MacroAction> actions, int menuSlots, BitSet plainSlots, boolean mergeQuickMoves) {
+        int containerSlots = menuSlots > PLAYER_INVENTORY_SLOTS ? menuSlots - PLAYER_INVENTORY_SLOTS : -1;
+
+        List<MacroAction> out = new ArrayList<>(actions.size());
+        long removedMs = 0;
+        int removed = 0;
+        int merged = 0;
+        boolean cursorEmpty = true;
+
+        for (int i = 0; i < actions.size(); i++) {
+            MacroAction action = actions.get(i);
+            ClickTarget t = action.target;
+            MacroAction next = i + 1 < actions.size() ? actions.get(i + 1) : null;
+            long gap = gapBefore(actions, i);
+
+            if (t.type != ClickTarget.Type.SLOT) {
+                // A point click can do anything to the cursor
+                out.add(shifted(action, removedMs));
+                cursorEmpty = false;
+                continue;
+            }
+
+            if (cursorEmpty && isLeftPickup(t) && t.slotId == AbstractContainerMenu.SLOT_CLICKED_OUTSIDE) {
+                removed++;
+                removedMs += gap;
+                continue;
+            }
+
+            if (cursorEmpty && isLeftPickup(t) && next != null && isLeftPickup(next.target)
+                    && next.target.type == ClickTarget.Type.SLOT) {
+                if (next.target.slotId == t.slotId && isPlain(plainSlots, t.slotId)) {
+                    // Pick up and put back
+                    removed += 2;
+                    removedMs += gap + gapBefore(actions, i + 1);
+                    i++;
+                    continue;
+                }
+                if (mergeQuickMoves && containerSlots > 0 && t.slotId >= 0 && next.target.slotId >= 0
+                        && (t.slotId < containerSlots) != (next.target.slotId < containerSlots)) {
+                    out.add(shifted(new MacroAction(action.timestamp,
+                        new ClickTarget(t.slotId, 0, ContainerInput.QUICK_MOVE, t.customDelay)), removedMs));
+                    merged++;
+                    removedMs += gapBefore(actions, i + 1);
+                    i++;
+                    continue;
+                }
+            }
+
+            if (t.input == ContainerInput.QUICK_MOVE && !out.isEmpty()) {
+                MacroAction last = out.get(out.size() - 1);
+                if (last.target.type == ClickTarget.Type.SLOT && last.target.input == ContainerInput.QUICK_MOVE
+                        && last.target.slotId == t.slotId && gap < SAME_TICK_MS
+                        && isPlain(plainSlots, t.slotId)) {
+                    removed++;
+                    removedMs += gap;
+                    continue;
+                }
+            }
+
+            out.add(shifted(action, removedMs));
+            cursorEmpty = cursorAfter(t, cursorEmpty);
+        }
+
+        return new Result(out, actions.size(), removed, merged, removedMs);
+    }
+
+    private static boolean isPlain(BitSet plainSlots, int slotId) {
+        return slotId >= 0 && plainSlots.get(slotId);
+    }
+
+    private static boolean isLeftPickup(ClickTarget t) {
+        return t.type == ClickTarget.Type.SLOT && t.input == ContainerInput.PICKUP && t.button == 0;
+    }
+
+    // Whether the cursor is still known to be empty after this action
+    private static boolean cursorAfter(ClickTarget t, boolean cursorEmpty) {
+        switch (t.input) {
+            case QUICK_MOVE:
+            case SWAP:
+            case THROW:
+                return cursorEmpty;
+            case PICKUP:
+                // Left-click outside drops the whole carried stack
+                return t.slotId == AbstractContainerMenu.SLOT_CLICKED_OUTSIDE && t.button == 0;
+            default:
+                return false;
+        }
+    }
+
+    private static long gapBefore(List<MacroAction> actions, int i) {
+        return i == 0 ? Math.max(0, actions.get(0).timestamp)
+            : Math.max(0, actions.get(i).getRelativeDelay(actions.get(i - 1).timestamp));
+    }
+
+    private static MacroAction shifted(MacroAction action, long removedMs) {
+        return removedMs == 0 ? action : new MacroAction(action.timestamp - removedMs, action.target);
+    }
+
+    static final class Result {
+        final List<MacroAction> actions;
+        final int packetsBefore;
+        final int removed;
+        final int merged;
+        final long savedMs;
+
+        Result(List<MacroAction> actions, int packetsBefore, int removed, int merged, long savedMs) {
+            this.actions = actions;
+            this.packetsBefore = packetsBefore;
+            this.removed = removed;
+            this.merged = merged;
+            this.savedMs = savedMs;
+        }
+
+        int getPacketsAfter() { return actions.size(); }
+        int getPacketsSaved() { return packetsBefore - actions.size(); }
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d packets (%d dropped, %d merged, %.1fs shorter)",
+                packetsBefore, actions.size(), removed, merged, savedMs / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+// ============================================
+// FILE: MacroPlayer.java
+// Path: src/main/java/com/bapelauto/click/MacroPlayer.java
+//
+// Replay timing for a recorded macro. Works out the gap before each action
+// from the recorded timestamps, so a replay follows the pacing of the
+// recording instead of a flat baseDelay.
+//
+//   - Speed: every gap is divided by the multiplier (0.5x - 8x).
+//   - Compression: scales all gaps by the same factor so the shortest
+//     recorded gap lands on the floor, then clamps anything below the
+//     floor up to it. A long, slow recording then runs as fast as the
+//     floor allows while its waits keep their proportions.
+//
+// The gap before the first action (used when the replay loops) is the
+// time from starting the recording to the first capture.
+// ============================================
+package com.bapelauto.click;
+
+import java.util.List;
+
+final class MacroPlayer {
+
+    static final double MIN_SPEED = 0.5;
+    static final double MAX_SPEED = 8.0;
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private final long[] recordedGapsMs;
+    private final long[] gapsNanos;
+
+    MacroPlayer(List<MacroAction> actions) {
+        recordedGapsMs = new long[actions.size()];
+        long previous = 0;
+        for (int i = 0; i < actions.size(); i++) {
+            MacroAction action = actions.get(i);
+            recordedGapsMs[i] = Math.max(0, action.getRelativeDelay(previous));
+            previous = action.timestamp;
+        }
+        gapsNanos = new long[recordedGapsMs.length];
+        configure(1.0, false, 0);
+    }
+
+    /**
+     * Recompute the replay gaps. floorMs only applies when compressing.
+     */
+    void configure(double speed, boolean compress, long floorMs) {
+        double s = clampSpeed(speed);
+        double scale = 1.0;
+        long floorNanos = 0;
+
+        if (compress) {
+            floorNanos = Math.max(0, floorMs) * NANOS_PER_MS;
+            long shortest = Long.MAX_VALUE;
+            for (long gap : recordedGapsMs) {
+                if (gap > 0) shortest = Math.min(shortest, gap);
+            }
+            // Only ever shrink; a recording that is already faster than the
+            // floor just gets clamped
+            if (shortest != Long.MAX_VALUE && shortest > floorMs) {
+                scale = (double) floorMs / shortest;
+            }
+        }
+
+        for (int i = 0; i < recordedGapsMs.length; i++) {
+            long nanos = (long) (recordedGapsMs[i] * NANOS_PER_MS * scale / s);
+            gapsNanos[i] = Math.max(floorNanos, nanos);
+        }
+    }
+
+    /**
+     * Wait before the action at index (index 0 = the gap when looping)
+     */
+    long gapBeforeNanos(int index) {
+        return gapsNanos[index];
+    }
+
+    int size() {
+        return gapsNanos.length;
+    }
+
+    /**
+     * Length of one pass through the macro at the current settings
+     */
+    long getLoopMillis() {
+        long total = 0;
+        for (long gap : gapsNanos) total += gap;
+        return total / NANOS_PER_MS;
+    }
+
+    static double clampSpeed(double speed) {
+        if (Double.isNaN(speed)) return 1.0;
+        return Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+    }
+}
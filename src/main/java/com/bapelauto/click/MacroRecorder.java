@@ -9,6 +9,7 @@ import com.bapelauto.util.ChatUtil;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.Component;
 import net.minecraft.sounds.SoundEvents;
+import net.minecraft.world.inventory.ContainerInput;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,7 +32,7 @@ public class MacroRecorder {
         recordedActions.clear();
         
         if (client.player != null) {
-            ChatUtil.displayClientMessage(client, Component.literal("§a§l[Recording] STARTED - Capture points with [-], stop with []]"), true);
+            ChatUtil.displayClientMessage(client, Component.literal("§a§l[Recording] STARTED - Click slots or capture points with [-], stop with []]"), true);
             client.player.playSound(SoundEvents.NOTE_BLOCK_PLING.value(), 1.0F, 2.0F);
         }
     }
@@ -66,10 +67,38 @@ public class MacroRecorder {
         recordedActions.add(new MacroAction(relativeTime, target));
     }
     
+    /**
+     * A real slot click from the open container screen. Recorded as-is so a
+     * shift-click, PICKUP_ALL or drag replays as the same packets.
+     */
+    public boolean recordInput(int slotId, int button, ContainerInput input) {
+        if (!isRecording) return false;
+        
+        long relativeTime = System.currentTimeMillis() - recordingStartTime;
+        recordedActions.add(new MacroAction(relativeTime, new ClickTarget(slotId, button, input, 0)));
+        return true;
+    }
+    
+    /**
+     * Replace the recording with saved actions (from the macro library)
+     */
+    public void loadActions(List<MacroAction> actions) {
+        isRecording = false;
+        recordedActions.clear();
+        recordedActions.addAll(actions);
+    }
+    
     public List<MacroAction> getRecordedActions() {
         return new ArrayList<>(recordedActions);
     }
     
+    /**
+     * Replay timing for the recorded actions (same order as getTargetsFromMacro)
+     */
+    MacroPlayer createPlayer() {
+        return new MacroPlayer(recordedActions);
+    }
+    
     public List<ClickTarget> getTargetsFromMacro() {
         List<ClickTarget> targets = new ArrayList<>();
         for (MacroAction action : recordedActions) {
@@ -0,0 +1,197 @@
+// ============================================
+// FILE: CommandQueue.java
+// Path: src/main/java/com/bapelauto/command/CommandQueue.java
+//
+// Single outbound pipeline for everything the mod sends to the server as a
+// command or chat line. Producers (periodic command, scheduler, conditional
+// actions, hotkeys) only enqueue; tick() on the client thread sends.
+//
+//   - Priority lanes: URGENT (e.g. a health-triggered /home) always goes
+//     before NORMAL, which goes before BACKGROUND.
+//   - Deduplication: enqueueing text that is already pending merges into the
+//     pending entry (promoting it if the new request is more urgent).
+//   - Shaping: a send needs a token from the machine-wide SharedTokenBucket
+//     and must respect serverCommandInterval for the current server (set it
+//     on the SERVER config layer for servers with stricter spam rules).
+//   - Latency: time from enqueue to send, averaged and peak.
+//
+// Not thread-safe: producers and tick() all run on the client thread.
+// ============================================
+package com.bapelauto.command;
+
+import com.bapelauto.SharedTokenBucket;
+import com.bapelauto.util.Log;
+
+import net.minecraft.client.Minecraft;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+public class CommandQueue {
+
+    public enum Priority { URGENT, NORMAL, BACKGROUND }
+
+    // Queued commands older than this are dropped instead of sent late
+    private static final long MAX_QUEUE_AGE_MS = 60000;
+    // Upper bound per tick, so a backlog can't stall the client thread
+    private static final int MAX_SENDS_PER_TICK = 4;
+
+    private final SharedTokenBucket fleetBucket;
+    private final LongSupplier serverInterval;
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Pending>[] lanes = new ArrayDeque[Priority.values().length];
+    private final Map<String, Pending> pendingByText = new HashMap<>();
+
+    // Per-server shaping state, reset when the server changes
+    private String shapedServer = null;
+    private long nextServerSendAt = 0;
+
+    // Metrics
+    private long sentCount = 0;
+    private long droppedCount = 0;
+    private long mergedCount = 0;
+    private double avgLatencyMs = 0;
+    private long maxLatencyMs = 0;
+
+    public CommandQueue(SharedTokenBucket fleetBucket, LongSupplier serverInterval) {
+        this.fleetBucket = fleetBucket;
+        this.serverInterval = serverInterval;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Queue a "/command" or chat line. Returns false if the same text was
+     * already pending (it is then sent once, at the higher of the two priorities).
+     */
+    public boolean enqueue(String text, Priority priority) {
+        return enqueue(text, priority, null);
+    }
+
+    public boolean enqueue(String text, Priority priority, Runnable onSent) {
+        if (text == null || text.isBlank()) return false;
+        String key = text.trim();
+
+        Pending existing = pendingByText.get(key);
+        if (existing != null) {
+            mergedCount++;
+            if (priority.ordinal() < existing.priority.ordinal()) {
+                lanes[existing.priority.ordinal()].remove(existing);
+                existing.priority = priority;
+                lanes[priority.ordinal()].addLast(existing);
+            }
+            if (existing.onSent == null) existing.onSent = onSent; // Still sent only once
+            return false;
+        }
+
+        Pending pending = new Pending(key, priority, System.nanoTime(), onSent);
+        pendingByText.put(key, pending);
+        lanes[priority.ordinal()].addLast(pending);
+        return true;
+    }
+
+    /**
+     * Send what the rate limits allow, most urgent first. Client thread only.
+     */
+    public void tick(Minecraft client) {
+        if (client.player == null || client.getConnection() == null) {
+            // Anything still queued was meant for the previous connection
+            if (!pendingByText.isEmpty()) clear();
+            return;
+        }
+
+        String server = client.getCurrentServer() != null ? client.getCurrentServer().ip : "";
+        if (!server.equals(shapedServer)) {
+            shapedServer = server;
+            nextServerSendAt = 0;
+        }
+
+        long now = System.currentTimeMillis();
+        for (int sent = 0; sent < MAX_SENDS_PER_TICK; sent++) {
+            Pending next = peekNext();
+            if (next == null) return;
+            if (now < nextServerSendAt) return;
+            if (fleetBucket != null && !fleetBucket.tryAcquire()) return;
+
+            poll(next);
+            send(client, next);
+            nextServerSendAt = now + Math.max(0, serverInterval.getAsLong());
+        }
+    }
+
+    // Head of the most urgent non-empty lane, dropping entries that went stale
+    private Pending peekNext() {
+        long nowNanos = System.nanoTime();
+        for (ArrayDeque<Pending> lane : lanes) {
+            while (!lane.isEmpty()) {
+                Pending head = lane.peekFirst();
+                if ((nowNanos - head.enqueuedAt) / 1_000_000 <= MAX_QUEUE_AGE_MS) {
+                    return head;
+                }
+                poll(head);
+                droppedCount++;
+                Log.warn("[CommandQueue] Dropped stale command: " + head.text);
+            }
+        }
+        return null;
+    }
+
+    private void poll(Pending pending) {
+        lanes[pending.priority.ordinal()].remove(pending);
+        pendingByText.remove(pending.text);
+    }
+
+    private void send(Minecraft client, Pending pending) {
+        try {
+            if (pending.text.startsWith("/")) {
+                client.player.connection.sendCommand(pending.text.substring(1));
+            } else {
+                client.player.connection.sendChat(pending.text);
+            }
+        } catch (Exception e) {
+            Log.error("[CommandQueue] Send failed: " + pending.text, e);
+            return;
+        }
+
+        long latencyMs = (System.nanoTime() - pending.enqueuedAt) / 1_000_000;
+        sentCount++;
+        avgLatencyMs = sentCount == 1 ? latencyMs : avgLatencyMs * 0.9 + latencyMs * 0.1;
+        maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+
+        if (pending.onSent != null) pending.onSent.run();
+    }
+
+    public void clear() {
+        for (ArrayDeque<Pending> lane : lanes) {
+            droppedCount += lane.size();
+            lane.clear();
+        }
+        pendingByText.clear();
+    }
+
+    public int getPendingCount() { return pendingByText.size(); }
+    public long getSentCount() { return sentCount; }
+    public long getDroppedCount() { return droppedCount; }
+    public long getMergedCount() { return mergedCount; }
+    /** Moving average of enqueue-to-send time */
+    public double getAverageLatencyMs() { return avgLatencyMs; }
+    public long getMaxLatencyMs() { return maxLatencyMs; }
+
+    private static final class Pending {
+        final String text;
+        final long enqueuedAt;
+        Priority priority;
+        Runnable onSent;
+
+        Pending(String text, Priority priority, long enqueuedAt, Runnable onSent) {
+            this.text = text;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.onSent = onSent;
+        }
+    }
+}
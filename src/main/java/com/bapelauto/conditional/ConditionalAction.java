@@ -5,10 +5,11 @@
 package com.bapelauto.conditional;
 
 import com.bapelauto.util.ChatUtil;
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.command.CommandQueue;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.world.entity.player.Player;
-import net.minecraft.world.item.ItemStack;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -137,6 +138,20 @@ public class ConditionalAction {
         return conditionMet;
     }
     
+    /**
+     * Survival triggers jump the command queue; everything else waits its turn
+     */
+    private CommandQueue.Priority commandPriority() {
+        switch (conditionType) {
+            case HEALTH_BELOW:
+            case HUNGER_BELOW:
+            case IN_COMBAT:
+                return CommandQueue.Priority.URGENT;
+            default:
+                return CommandQueue.Priority.NORMAL;
+        }
+    }
+    
     /**
      * Execute the action
      */
@@ -148,11 +163,8 @@ public class ConditionalAction {
         switch (actionType) {
             case SEND_COMMAND:
                 if (actionData != null && !actionData.isEmpty()) {
-                    if (actionData.startsWith("/")) {
-                        client.player.connection.sendCommand(actionData.substring(1));
-                    } else {
-                        client.player.connection.sendChat(actionData);
-                    }
+                    CommandQueue queue = AutoBotMod.getCommandQueue();
+                    if (queue != null) queue.enqueue(actionData, commandPriority());
                 }
                 break;
                 
@@ -185,24 +197,14 @@ public class ConditionalAction {
         }
     }
     
+    // Main inventory (hotbar included), from the shared slot index of
+    // whichever menu is open - armor and offhand don't count
     private boolean isInventoryFull(Player player) {
-        for (int i = 0; i < player.getInventory().getContainerSize(); i++) {
-            ItemStack stack = player.getInventory().getItem(i);
-            if (stack.isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+        return AutoBotMod.getSlotIndex().of(player.containerMenu).isPlayerInventoryFull();
     }
 
     private boolean isInventoryEmpty(Player player) {
-        for (int i = 0; i < player.getInventory().getContainerSize(); i++) {
-            ItemStack stack = player.getInventory().getItem(i);
-            if (!stack.isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+        return AutoBotMod.getSlotIndex().of(player.containerMenu).isPlayerInventoryEmpty();
     }
     
     public void setCooldown(long cooldown) {
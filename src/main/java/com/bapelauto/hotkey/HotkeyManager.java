@@ -18,6 +18,8 @@ package com.bapelauto.hotkey;
 import com.bapelauto.util.Log;
 
 import com.bapelauto.util.ChatUtil;
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.command.CommandQueue;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.KeyMapping;
@@ -52,6 +54,7 @@ public class HotkeyManager {
 
         START_RECORDING("Start Recording", "Begin macro recording"),
         STOP_RECORDING("Stop Recording", "End macro recording"),
+        SAVE_MACRO("Save Macro", "Save targets or recording under a name"),
 
         LOAD_PROFILE("Load Profile", "Switch to specific profile"),
         CYCLE_PROFILE("Cycle Profile", "Switch to next profile"),
@@ -181,12 +184,19 @@ public class HotkeyManager {
             switch (action) {
                 case SEND_COMMAND:
                     if (actionData != null && !actionData.isEmpty()) {
-                        if (actionData.startsWith("/")) {
-                            client.player.connection.sendCommand(actionData.substring(1));
-                        } else {
-                            client.player.connection.sendChat(actionData);
-                        }
-                        ChatUtil.displayClientMessage(client, Component.literal("§e[Hotkey] Sent: " + actionData), true);
+                        CommandQueue queue = AutoBotMod.getCommandQueue();
+                        if (queue == null) return false;
+                        // Pressed by the player, so it goes ahead of automated commands
+                        queue.enqueue(actionData, CommandQueue.Priority.URGENT);
+                        ChatUtil.displayClientMessage(client, Component.literal("§e[Hotkey] Queued: " + actionData), true);
+                    }
+                    break;
+
+                case SAVE_MACRO:
+                    if (actionData != null && !actionData.isBlank()) {
+                        var guiClickManager = AutoBotMod.getGuiClickManager();
+                        if (guiClickManager == null) return false;
+                        guiClickManager.saveMacro(client, actionData.trim());
                     }
                     break;
 
@@ -16,7 +16,9 @@ package com.bapelauto.inventory;
 
 import com.bapelauto.util.Log;
 
+import com.bapelauto.AutoBotMod;
 import com.bapelauto.ShardedConfigManager;
+import com.bapelauto.click.ClickPacer;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
 import net.minecraft.world.inventory.AbstractContainerMenu;
@@ -42,16 +44,27 @@ public class InventoryManager {
     // never touch, so continuous automation can't quietly move away
     // something valuable the player forgot was in that container.
     private final Set<String> protectedItems = ConcurrentHashMap.newKeySet();
+    // The same ids as an ItemKey bitset, rebuilt when the set changes
+    private volatile ItemFilter protectedFilter = ItemFilter.exactIds(Collections.emptySet());
+
+    private ShardedConfigManager boundConfig;
+    private ShardedConfigManager.BooleanKey autoStealKey;
+    private ShardedConfigManager.BooleanKey autoStoreKey;
+    private ShardedConfigManager.LongKey inventoryDelayKey;
+    private ShardedConfigManager.StringKey protectedItemsKey;
 
     public void tick(Minecraft client, AbstractContainerScreen<?> screen) {
         if (!autoStealEnabled && !autoStoreEnabled) return;
         if (client.gameMode == null || client.player == null) return;
 
+        ClickPacer pacer = AutoBotMod.getClickPacer();
         long currentTime = System.currentTimeMillis();
-        if ((currentTime - lastActionTime) < inventoryDelay) return;
+        if ((currentTime - lastActionTime) < pacer.pace(inventoryDelay)) return;
 
         try {
             AbstractContainerMenu handler = screen.getMenu();
+            if (!pacer.canSend(handler)) return;
+            SlotIndex index = AutoBotMod.getSlotIndex().of(handler);
             int totalSlots = handler.slots.size();
             int containerEnd = Math.max(0, totalSlots - 36);
 
@@ -60,12 +73,12 @@ public class InventoryManager {
                     nextStealSlotId = 0;
                 }
 
-                for (int i = nextStealSlotId; i < containerEnd; i++) {
-                    if (i >= handler.slots.size()) break;
-
+                for (int i = index.nextOccupied(nextStealSlotId, containerEnd); i >= 0;
+                     i = index.nextOccupied(i + 1, containerEnd)) {
                     Slot slot = handler.getSlot(i);
-                    if (slot.hasItem() && slot.mayPickup(client.player) && !isProtected(slot.getItem())) {
+                    if (slot.mayPickup(client.player) && !isProtected(slot.getItem())) {
                         client.gameMode.handleContainerInput(handler.containerId, i, 0, ContainerInput.QUICK_MOVE, client.player);
+                        pacer.onSent(handler);
                         totalItemsMoved++;
                         nextStealSlotId = i + 1;
                         lastActionTime = currentTime;
@@ -76,13 +89,12 @@ public class InventoryManager {
             }
 
             if (autoStoreEnabled) {
-                int playerStart = Math.max(0, totalSlots - 36);
-                for (int i = playerStart; i < totalSlots; i++) {
-                    if (i >= handler.slots.size()) break;
-
+                for (int i = index.nextOccupied(containerEnd, totalSlots); i >= 0;
+                     i = index.nextOccupied(i + 1, totalSlots)) {
                     Slot slot = handler.getSlot(i);
-                    if (slot.hasItem() && !isProtected(slot.getItem())) {
+                    if (!isProtected(slot.getItem())) {
                         client.gameMode.handleContainerInput(handler.containerId, i, 0, ContainerInput.QUICK_MOVE, client.player);
+                        pacer.onSent(handler);
                         totalItemsMoved++;
                         lastActionTime = currentTime;
                         return;
@@ -152,8 +164,7 @@ public class InventoryManager {
     }
 
     private boolean isProtected(ItemStack stack) {
-        if (stack.isEmpty()) return false;
-        return protectedItems.contains(stack.getItem().toString().toLowerCase());
+        return protectedFilter.test(stack);
     }
 
     /**
@@ -164,12 +175,14 @@ public class InventoryManager {
     public void addProtectedItem(String itemId) {
         if (itemId != null && !itemId.isBlank()) {
             protectedItems.add(itemId.trim().toLowerCase());
+            protectedFilter = ItemFilter.exactIds(protectedItems);
         }
     }
 
     public void removeProtectedItem(String itemId) {
         if (itemId != null) {
             protectedItems.remove(itemId.trim().toLowerCase());
+            protectedFilter = ItemFilter.exactIds(protectedItems);
         }
     }
 
@@ -177,13 +190,26 @@ public class InventoryManager {
         return Collections.unmodifiableSet(protectedItems);
     }
 
+    private void bindConfig(ShardedConfigManager config) {
+        if (boundConfig == config) return;
+        boundConfig = config;
+        autoStealKey = config.booleanKey("autoStealEnabled", false, v -> autoStealEnabled = v);
+        autoStoreKey = config.booleanKey("autoStoreEnabled", false, v -> autoStoreEnabled = v);
+        inventoryDelayKey = config.longKey("inventoryDelay", 150, v -> inventoryDelay = v);
+        protectedItemsKey = config.stringKey("protectedItems", "", this::setProtectedItemsFrom);
+    }
+
     public void loadFromConfig(ShardedConfigManager config) {
-        autoStealEnabled = config.getBoolean("autoStealEnabled", false);
-        autoStoreEnabled = config.getBoolean("autoStoreEnabled", false);
-        inventoryDelay = config.getLong("inventoryDelay", 150);
+        bindConfig(config);
+        autoStealEnabled = autoStealKey.get();
+        autoStoreEnabled = autoStoreKey.get();
+        inventoryDelay = inventoryDelayKey.get();
+        setProtectedItemsFrom(protectedItemsKey.get());
+    }
 
+    private void setProtectedItemsFrom(String stored) {
         protectedItems.clear();
-        String stored = config.getString("protectedItems", "");
+        protectedFilter = ItemFilter.exactIds(Collections.emptySet());
         if (!stored.isBlank()) {
             for (String itemId : stored.split(",")) {
                 addProtectedItem(itemId);
@@ -192,10 +218,11 @@ public class InventoryManager {
     }
 
     public void saveToConfig(ShardedConfigManager config) {
-        config.set("autoStealEnabled", autoStealEnabled);
-        config.set("autoStoreEnabled", autoStoreEnabled);
-        config.set("inventoryDelay", inventoryDelay);
-        config.set("protectedItems", String.join(",", protectedItems));
+        bindConfig(config);
+        autoStealKey.set(autoStealEnabled);
+        autoStoreKey.set(autoStoreEnabled);
+        inventoryDelayKey.set(inventoryDelay);
+        protectedItemsKey.set(String.join(",", protectedItems));
     }
 
     // Getters and setters
@@ -0,0 +1,202 @@
+// ============================================
+// FILE: ItemFilter.java
+// Path: src/main/java/com/bapelauto/inventory/ItemFilter.java
+//
+// A set of items described by user-typed strings, answered per ItemKey
+// from bitsets. Each item is matched against the strings once; after
+// that, testing a stack is a bit lookup with no string work.
+//
+//   containing(...) - name or registry id contains any of the fragments
+//                     (machine requirements)
+//   exactIds(...)   - registry id equals one of the ids (protected items)
+//   parse(...)      - each term picks its own mode (recipes):
+//                       #minecraft:coals   item tag
+//                       minecraft:coal     exact registry id
+//                       coal               id path or display name equals
+//                                          ("_" matches a space in names)
+//                       coal*              id path or name starts with
+//                       *coal*             id or name contains
+//
+// Stacks with their own name component can't share the per-item answer
+// for the name part, so for them only the registry-id half is memoized
+// and the name is checked against ItemKey's cached stack name.
+//
+// Client thread only.
+// ============================================
+package com.bapelauto.inventory;
+
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.Identifier;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+public final class ItemFilter {
+
+    private static final byte CONTAINS = 0;
+    private static final byte EXACT_ID = 1;
+    private static final byte WORD = 2;
+    private static final byte PREFIX = 3;
+    private static final byte TAG = 4;
+
+    private final String[] terms;     // Lowercase, compared with ids
+    private final String[] nameTerms; // Same with "_" as " ", compared with names
+    private final byte[] modes;
+    private final TagKey<Item>[] tags;
+
+    // Per ItemKey id: decided yet / accepted, for default-named stacks
+    private final BitSet known = new BitSet();
+    private final BitSet accepted = new BitSet();
+    // Per ItemKey id, registry id and tags alone, for stacks with their own name
+    private final BitSet idKnown = new BitSet();
+    private final BitSet idAccepted = new BitSet();
+
+    @SuppressWarnings("unchecked")
+    private ItemFilter(List<String> terms, List<Byte> modes) {
+        int n = terms.size();
+        this.terms = terms.toArray(new String[0]);
+        this.nameTerms = new String[n];
+        this.modes = new byte[n];
+        this.tags = new TagKey[n];
+        for (int i = 0; i < n; i++) {
+            this.modes[i] = modes.get(i);
+            this.nameTerms[i] = this.terms[i].replace('_', ' ');
+            if (this.modes[i] == TAG) {
+                Identifier id = Identifier.tryParse(this.terms[i]);
+                if (id != null) {
+                    tags[i] = TagKey.create(Registries.ITEM, id);
+                }
+            }
+        }
+    }
+
+    public static ItemFilter containing(Collection<String> fragments) {
+        return build(fragments, CONTAINS);
+    }
+
+    public static ItemFilter exactIds(Collection<String> ids) {
+        return build(ids, EXACT_ID);
+    }
+
+    /**
+     * Terms in the recipe syntax above, each with its own mode
+     */
+    public static ItemFilter parse(Collection<String> patterns) {
+        return build(patterns, (byte) -1);
+    }
+
+    private static ItemFilter build(Collection<String> raw, byte fixedMode) {
+        List<String> terms = new ArrayList<>();
+        List<Byte> modes = new ArrayList<>();
+        for (String r : raw) {
+            if (r == null || r.isBlank()) continue;
+            String term = r.trim().toLowerCase();
+            byte mode = fixedMode;
+            if (mode < 0) {
+                if (term.startsWith("#")) {
+                    mode = TAG;
+                    term = term.substring(1);
+                } else if (term.length() > 2 && term.startsWith("*") && term.endsWith("*")) {
+                    mode = CONTAINS;
+                    term = term.substring(1, term.length() - 1);
+                } else if (term.length() > 1 && term.endsWith("*")) {
+                    mode = PREFIX;
+                    term = term.substring(0, term.length() - 1);
+                } else if (term.indexOf(':') >= 0) {
+                    mode = EXACT_ID;
+                } else {
+                    mode = WORD;
+                }
+            }
+            terms.add(term);
+            modes.add(mode);
+        }
+        return new ItemFilter(terms, modes);
+    }
+
+    public boolean isEmpty() {
+        return terms.length == 0;
+    }
+
+    public boolean test(ItemStack stack) {
+        if (stack.isEmpty() || terms.length == 0) return false;
+        ItemKey key = ItemKey.of(stack.getItem());
+
+        if (ItemKey.hasDefaultName(stack)) {
+            return test(key);
+        }
+        return testId(key) || nameMatches(ItemKey.nameOf(stack));
+    }
+
+    /**
+     * Whether a default-named stack of this item matches
+     */
+    public boolean test(ItemKey key) {
+        int id = key.id;
+        if (!known.get(id)) {
+            known.set(id);
+            accepted.set(id, testId(key) || nameMatches(key.name));
+        }
+        return accepted.get(id);
+    }
+
+    private boolean testId(ItemKey key) {
+        int id = key.id;
+        if (!idKnown.get(id)) {
+            idKnown.set(id);
+            idAccepted.set(id, idMatches(key));
+        }
+        return idAccepted.get(id);
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean idMatches(ItemKey key) {
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            switch (modes[i]) {
+                case CONTAINS:
+                    if (key.registryId.contains(term)) return true;
+                    break;
+                case EXACT_ID:
+                    if (key.registryId.equals(term)) return true;
+                    break;
+                case WORD:
+                    if (key.path.equals(term)) return true;
+                    break;
+                case PREFIX:
+                    if (key.path.startsWith(term)) return true;
+                    break;
+                case TAG:
+                    if (tags[i] != null && key.item.builtInRegistryHolder().is(tags[i])) return true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private boolean nameMatches(String name) {
+        for (int i = 0; i < terms.length; i++) {
+            switch (modes[i]) {
+                case CONTAINS:
+                    if (name.contains(terms[i])) return true;
+                    break;
+                case WORD:
+                    if (name.equals(nameTerms[i])) return true;
+                    break;
+                case PREFIX:
+                    if (name.startsWith(nameTerms[i])) return true;
+                    break;
+                default:
+                    break; // Ids and tags don't look at names
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+// ============================================
+// FILE: ItemKey.java
+// Path: src/main/java/com/bapelauto/inventory/ItemKey.java
+//
+// Interned identity of an Item: registry id, lowercase display name and a
+// dense int id, computed once per Item instead of on every scanned slot.
+// The dense id is what SlotIndex and ItemFilter key their bitsets on.
+//
+// Names: a stack with no component changes shows its item's default name,
+// which is the cached one. A stack with its own item name component
+// (Slimefun items, renamed drops) has that name cached by component
+// instance - the component is immutable and shared by copies of the stack,
+// so repeated scans of the same stack don't allocate either. Names that
+// Item.getName builds on the fly (heads, potions) are computed each time.
+//
+// Cached names follow the language at first use; they are only compared
+// against user-typed fragments, so a language switch mid-session just
+// means matching on the old names until restart.
+//
+// Client thread only.
+// ============================================
+package com.bapelauto.inventory;
+
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ItemKey {
+
+    private static final Map<Item, ItemKey> BY_ITEM = new IdentityHashMap<>();
+    private static final List<ItemKey> BY_ID = new ArrayList<>();
+
+    // Lowercase names of stacks with their own name component
+    private static final Map<Component, String> STACK_NAMES = new IdentityHashMap<>();
+    private static final int MAX_STACK_NAMES = 512;
+
+    /** Dense id, 0..count()-1, in order of first use */
+    public final int id;
+    public final Item item;
+    /** e.g. "minecraft:coal", lowercase (same form as Item.toString()) */
+    public final String registryId;
+    /** registryId without the namespace, e.g. "coal" */
+    public final String path;
+    /** Default display name, lowercase */
+    public final String name;
+
+    private ItemKey(int id, Item item) {
+        this.id = id;
+        this.item = item;
+        this.registryId = item.toString().toLowerCase();
+        this.path = registryId.substring(registryId.indexOf(':') + 1);
+        this.name = item.getName(item.getDefaultInstance()).getString().toLowerCase();
+    }
+
+    public static ItemKey of(Item item) {
+        ItemKey key = BY_ITEM.get(item);
+        if (key == null) {
+            key = new ItemKey(BY_ID.size(), item);
+            BY_ITEM.put(item, key);
+            BY_ID.add(key);
+        }
+        return key;
+    }
+
+    /**
+     * Key of the stack's item, or null for an empty stack
+     */
+    public static ItemKey of(ItemStack stack) {
+        return stack.isEmpty() ? null : of(stack.getItem());
+    }
+
+    public static ItemKey byId(int id) {
+        return id >= 0 && id < BY_ID.size() ? BY_ID.get(id) : null;
+    }
+
+    public static int count() {
+        return BY_ID.size();
+    }
+
+    /**
+     * Whether the stack shows its item's default name, i.e. nameOf(stack)
+     * is just of(stack).name
+     */
+    public static boolean hasDefaultName(ItemStack stack) {
+        return stack.isComponentsPatchEmpty();
+    }
+
+    /**
+     * Lowercase display name of the stack (as Item.getName(stack))
+     */
+    public static String nameOf(ItemStack stack) {
+        if (stack.isEmpty()) return "";
+        if (hasDefaultName(stack)) return of(stack.getItem()).name;
+
+        Component component = stack.getItem().getName(stack);
+        if (component != stack.get(DataComponents.ITEM_NAME)) {
+            return component.getString().toLowerCase(); // Built per call - nothing stable to key on
+        }
+        String name = STACK_NAMES.get(component);
+        if (name == null) {
+            if (STACK_NAMES.size() >= MAX_STACK_NAMES) STACK_NAMES.clear();
+            name = component.getString().toLowerCase();
+            STACK_NAMES.put(component, name);
+        }
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemKey[" + id + " " + registryId + "]";
+    }
+}
@@ -0,0 +1,287 @@
+// ============================================
+// FILE: SlotIndex.java
+// Path: src/main/java/com/bapelauto/inventory/SlotIndex.java
+//
+// Shared index over the slots of the open menu, so "where is coal" or
+// "first empty slot" is a bitset lookup instead of every subsystem
+// scanning handler.slots on its own each tick.
+//
+//   byKey    - ItemKey id -> bitset of slots holding that item
+//   empty    - slots with nothing in them
+//   partial  - non-empty slots below their max stack size
+//
+// Kept current incrementally:
+//   - server slot update (ClientPacketListenerMixin) -> that slot only
+//   - full content resync, or a menu we aren't tracking -> rebuild
+//   - a local click (MultiPlayerGameModeMixin), or a player inventory
+//     update while another menu is open -> marked dirty; the next query
+//     diffs each slot's stack reference and count against the index and
+//     re-indexes only the slots that changed
+//
+// The player's main inventory (36 slots, hotbar included) is located by
+// slot container rather than assuming the last 36 slots, so this also
+// works for the plain inventory menu with its armor and offhand slots.
+//
+// Client thread only.
+// ============================================
+package com.bapelauto.inventory;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public final class SlotIndex {
+
+    private static final int PLAYER_INVENTORY_SLOTS = 36;
+
+    private AbstractContainerMenu menu;
+    private int size = 0;
+
+    // Per slot: what the index believes is there
+    private ItemStack[] stacks = new ItemStack[0];
+    private Item[] items = new Item[0];
+    private int[] counts = new int[0];
+
+    private BitSet[] byKey = new BitSet[64]; // Indexed by ItemKey.id
+    private final BitSet empty = new BitSet();
+    private final BitSet partial = new BitSet();
+    private final BitSet playerSlots = new BitSet();
+    private int playerStart = 0;
+    private int playerSlotCount = 0;
+    private int playerOccupied = 0;
+
+    private boolean dirty = false;
+
+    private long rebuilds = 0;
+    private long slotUpdates = 0;
+
+    /**
+     * The index for this menu, brought up to date
+     */
+    public SlotIndex of(AbstractContainerMenu menu) {
+        if (menu != this.menu || menu.slots.size() != size) {
+            rebuild(menu);
+        } else if (dirty) {
+            refresh();
+        }
+        return this;
+    }
+
+    // ===== Updates =====
+
+    /**
+     * Server updated one slot (ClientPacketListenerMixin)
+     */
+    public void onServerSlot(int containerId, int slotId) {
+        if (menu == null) return;
+        if (containerId != menu.containerId) {
+            // Player inventory changed under another menu - its slots mirror it
+            if (containerId == 0) dirty = true;
+            return;
+        }
+        if (slotId >= 0 && slotId < size) {
+            update(slotId);
+        }
+    }
+
+    /**
+     * Server replaced the whole container (ClientPacketListenerMixin)
+     */
+    public void onServerContent(int containerId) {
+        if (menu == null) return;
+        if (containerId == menu.containerId) {
+            rebuild(menu);
+        } else if (containerId == 0) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * A click was applied to the client menu (MultiPlayerGameModeMixin)
+     */
+    public void onLocalClick() {
+        dirty = true;
+    }
+
+    public void clear() {
+        menu = null;
+        size = 0;
+        clearKeys();
+        dirty = false;
+    }
+
+    private void rebuild(AbstractContainerMenu menu) {
+        this.menu = menu;
+        size = menu.slots.size();
+        if (stacks.length < size) {
+            stacks = new ItemStack[size];
+            items = new Item[size];
+            counts = new int[size];
+        }
+        clearKeys();
+        empty.clear();
+        partial.clear();
+        playerSlots.clear();
+        playerOccupied = 0;
+
+        for (int i = 0; i < size; i++) {
+            Slot slot = menu.slots.get(i);
+            if (slot.container instanceof Inventory && slot.getContainerSlot() < PLAYER_INVENTORY_SLOTS) {
+                playerSlots.set(i);
+            }
+            items[i] = null;
+            index(i, slot.getItem());
+        }
+        playerSlotCount = playerSlots.cardinality();
+        playerStart = playerSlots.isEmpty() ? Math.max(0, size - PLAYER_INVENTORY_SLOTS) : playerSlots.nextSetBit(0);
+        dirty = false;
+        rebuilds++;
+    }
+
+    // Re-index only the slots whose stack was replaced or resized
+    private void refresh() {
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = menu.slots.get(i).getItem();
+            if (stack != stacks[i] || stack.getCount() != counts[i] || (stack.isEmpty() ? null : stack.getItem()) != items[i]) {
+                update(i);
+            }
+        }
+        dirty = false;
+    }
+
+    private BitSet slots(int keyId) {
+        if (keyId >= byKey.length) {
+            byKey = Arrays.copyOf(byKey, Math.max(keyId + 1, byKey.length * 2));
+        }
+        BitSet slots = byKey[keyId];
+        if (slots == null) {
+            slots = new BitSet();
+            byKey[keyId] = slots;
+        }
+        return slots;
+    }
+
+    private BitSet existing(Item item) {
+        int keyId = ItemKey.of(item).id;
+        return keyId < byKey.length ? byKey[keyId] : null;
+    }
+
+    private void clearKeys() {
+        for (BitSet slots : byKey) {
+            if (slots != null) slots.clear();
+        }
+    }
+
+    private void update(int slotId) {
+        unindex(slotId);
+        index(slotId, menu.slots.get(slotId).getItem());
+        slotUpdates++;
+    }
+
+    private void unindex(int i) {
+        Item old = items[i];
+        if (old != null) {
+            slots(ItemKey.of(old).id).clear(i);
+            if (playerSlots.get(i)) playerOccupied--;
+        }
+        items[i] = null;
+    }
+
+    private void index(int i, ItemStack stack) {
+        stacks[i] = stack;
+        counts[i] = stack.getCount();
+        if (stack.isEmpty()) {
+            empty.set(i);
+            partial.clear(i);
+            return;
+        }
+        Item item = stack.getItem();
+        items[i] = item;
+        slots(ItemKey.of(item).id).set(i);
+        empty.clear(i);
+        partial.set(i, stack.getCount() < stack.getMaxStackSize());
+        if (playerSlots.get(i)) playerOccupied++;
+    }
+
+    // ===== Queries (slot ranges are [from, to)) =====
+
+    /** First empty slot in range, or -1 */
+    public int firstEmpty(int from, int to) {
+        return inRange(empty.nextSetBit(Math.max(0, from)), to);
+    }
+
+    /** Next non-empty slot at or after from, or -1 */
+    public int nextOccupied(int from, int to) {
+        return inRange(empty.nextClearBit(Math.max(0, from)), Math.min(to, size));
+    }
+
+    /** First slot in range holding this item, or -1 */
+    public int firstOf(Item item, int from, int to) {
+        BitSet slots = existing(item);
+        return slots == null ? -1 : inRange(slots.nextSetBit(Math.max(0, from)), to);
+    }
+
+    /** First slot in range holding this item with room for more, or -1 */
+    public int firstPartialOf(Item item, int from, int to) {
+        BitSet slots = existing(item);
+        if (slots == null) return -1;
+        for (int i = slots.nextSetBit(Math.max(0, from)); i >= 0 && i < to; i = slots.nextSetBit(i + 1)) {
+            if (partial.get(i)) return i;
+        }
+        return -1;
+    }
+
+    /** Total count of this item in range */
+    public int countOf(Item item, int from, int to) {
+        BitSet slots = existing(item);
+        if (slots == null) return 0;
+        int total = 0;
+        for (int i = slots.nextSetBit(Math.max(0, from)); i >= 0 && i < to; i = slots.nextSetBit(i + 1)) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    public boolean isEmpty(int slotId) {
+        return slotId < 0 || slotId >= size || empty.get(slotId);
+    }
+
+    public boolean isPartial(int slotId) {
+        return slotId >= 0 && slotId < size && partial.get(slotId);
+    }
+
+    /** Every main inventory slot is occupied */
+    public boolean isPlayerInventoryFull() {
+        return playerOccupied == playerSlotCount;
+    }
+
+    /** No main inventory slot is occupied */
+    public boolean isPlayerInventoryEmpty() {
+        return playerOccupied == 0;
+    }
+
+    private static int inRange(int slot, int to) {
+        return slot >= 0 && slot < to ? slot : -1;
+    }
+
+    /** First slot of the player's inventory section; everything before is the container */
+    public int getPlayerStart() { return playerStart; }
+    public int size() { return size; }
+    public long getRebuildCount() { return rebuilds; }
+    public long getSlotUpdateCount() { return slotUpdates; }
+
+    /**
+     * Index of whatever menu the client player has open (the inventory
+     * menu when no screen is), or null without a player
+     */
+    public SlotIndex current() {
+        Minecraft client = Minecraft.getInstance();
+        return client.player != null ? of(client.player.containerMenu) : null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.bapelauto.mixin;
+
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.realm.RealmTracker;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.network.protocol.game.ClientboundContainerSetContentPacket;
+import net.minecraft.network.protocol.game.ClientboundContainerSetSlotPacket;
+import net.minecraft.network.protocol.game.ClientboundLoginPacket;
+import net.minecraft.network.protocol.game.ClientboundRespawnPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ClientPacketListener.class)
+public abstract class ClientPacketListenerMixin {
+
+    // Level (re)loaded: realm tracking runs off these instead of every tick
+    @Inject(at = @At("TAIL"), method = "handleLogin", require = 0)
+    private void bapelauto_onLogin(ClientboundLoginPacket packet, CallbackInfo ci) {
+        RealmTracker tracker = AutoBotMod.getRealmTracker();
+        if (tracker != null) tracker.onLevelChanged(Minecraft.getInstance());
+    }
+
+    @Inject(at = @At("TAIL"), method = "handleRespawn", require = 0)
+    private void bapelauto_onRespawn(ClientboundRespawnPacket packet, CallbackInfo ci) {
+        RealmTracker tracker = AutoBotMod.getRealmTracker();
+        if (tracker != null) tracker.onLevelChanged(Minecraft.getInstance());
+    }
+
+    // Full container resync = the server rolled back our clicks; tells the
+    // container model, the click pacer and the slot index. TAIL so it runs on the client thread (the
+    // handler re-schedules itself off the network thread first).
+    // require = 0: losing this only loses rollback detection.
+    @Inject(at = @At("TAIL"), method = "handleContainerContent", require = 0)
+    private void bapelauto_onContainerContent(ClientboundContainerSetContentPacket packet, CallbackInfo ci) {
+        AutoBotMod.getContainerModel().onServerContent(packet.containerId());
+        AutoBotMod.getClickPacer().onResync(packet.containerId());
+        AutoBotMod.getSlotIndex().onServerContent(packet.containerId());
+    }
+
+    // The server only sends a slot when its result differs from what the
+    // client predicted - checked against the container model
+    @Inject(at = @At("TAIL"), method = "handleContainerSetSlot", require = 0)
+    private void bapelauto_onContainerSetSlot(ClientboundContainerSetSlotPacket packet, CallbackInfo ci) {
+        AutoBotMod.getContainerModel().onServerSlot(packet.containerId(), packet.slot());
+        AutoBotMod.getSlotIndex().onServerSlot(packet.containerId(), packet.slot());
+    }
+}
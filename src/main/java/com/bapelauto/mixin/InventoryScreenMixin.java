@@ -1,11 +1,15 @@
 package com.bapelauto.mixin;
 
 import com.bapelauto.AutoBotMod;
+import com.bapelauto.click.GuiClickManager;
 import com.bapelauto.inventory.InventoryManager;
+import net.minecraft.client.gui.GuiGraphicsExtractor;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
 import net.minecraft.client.gui.components.Button;
 import net.minecraft.network.chat.Component;
+import net.minecraft.world.inventory.ContainerInput;
+import net.minecraft.world.inventory.Slot;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
@@ -24,6 +28,22 @@ public abstract class InventoryScreenMixin extends Screen {
         super(title);
     }
 
+    // Frame-rate click dispatch: lets sub-tick click delays fire between ticks.
+    // require = 0 so a renamed render method only loses this, not the mod.
+    @Inject(at = @At("TAIL"), method = "extractRenderState", require = 0)
+    private void bapelauto_pumpClicks(GuiGraphicsExtractor context, int mouseX, int mouseY, float delta, CallbackInfo ci) {
+        if (this.minecraft == null || !AutoBotMod.isRunning()) return;
+        GuiClickManager clicks = AutoBotMod.getGuiClickManager();
+        if (clicks != null) clicks.onFrame(this.minecraft);
+    }
+
+    // Real slot input, for macro recording (shift-click, right-click, drag...)
+    @Inject(at = @At("HEAD"), method = "slotClicked")
+    private void bapelauto_recordSlotInput(Slot slot, int slotId, int button, ContainerInput input, CallbackInfo ci) {
+        GuiClickManager clicks = AutoBotMod.getGuiClickManager();
+        if (clicks != null && this.minecraft != null) clicks.onSlotInput(this.minecraft, slotId, button, input);
+    }
+
     @Inject(at = @At("TAIL"), method = "init()V") 
     private void bapelauto_injectButtons(CallbackInfo ci) {
         if (!AutoBotMod.isShowGuiButtons()) return;
@@ -0,0 +1,24 @@
+package com.bapelauto.mixin;
+
+import com.bapelauto.AutoBotMod;
+import net.minecraft.client.multiplayer.MultiPlayerGameMode;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.ContainerInput;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(MultiPlayerGameMode.class)
+public abstract class MultiPlayerGameModeMixin {
+
+    // Every container click - ours, macros and the player's own - goes
+    // through here after the client menu has been changed, so the slot
+    // index re-checks the menu on its next query. Required: without it the
+    // index would go stale after every click.
+    @Inject(at = @At("TAIL"), method = "handleContainerInput")
+    private void bapelauto_onContainerInput(int containerId, int slotId, int button, ContainerInput input,
+                                            Player player, CallbackInfo ci) {
+        AutoBotMod.getSlotIndex().onLocalClick();
+    }
+}
@@ -98,7 +98,7 @@ public class ProfileManager {
             Profile profile = deserializeProfile(json);
 
             // Apply config
-            profile.config.forEach(configManager::set);
+            configManager.setAll(profile.config);
             configManager.saveConfig();
 
             currentProfile = profileName;
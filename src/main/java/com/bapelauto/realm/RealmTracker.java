@@ -9,6 +9,11 @@
 //     to Identifier in this build - confirmed already working elsewhere,
 //     e.g. AutoBotMod.java's Identifier.fromNamespaceAndPath - so the
 //     accessor name change follows the same rename)
+//
+// Event-driven: onLevelChanged() runs from the login/respawn packet hooks
+// (ClientPacketListenerMixin) and onDisconnect() from Fabric's disconnect
+// event. tick() only compares the level and dimension key by identity as a
+// fallback, so nothing is rebuilt or written while standing in one realm.
 // ============================================
 package com.bapelauto.realm;
 
@@ -17,6 +22,9 @@ import com.bapelauto.util.Log;
 import com.bapelauto.SessionManager;
 import com.bapelauto.ShardedConfigManager;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
 
 public class RealmTracker {
     private final SessionManager sessionManager;
@@ -25,9 +33,10 @@ public class RealmTracker {
     private String currentServerAddress = "";
     private String currentRealmName = "";
     private boolean isConnected = false;
-    private long lastRealmChangeTime = 0;
     
-    private static final long CHANGE_COOLDOWN = 1000;
+    // Last level/dimension seen; ResourceKeys are interned, so == is enough
+    private ClientLevel lastLevel = null;
+    private ResourceKey<Level> lastDimension = null;
     
     private boolean enableAutoLoad = true;
     private boolean enableResetPerRealm = true;
@@ -40,66 +49,82 @@ public class RealmTracker {
         this.enableResetPerRealm = configManager.getBoolean("enableResetPerRealm", true);
     }
     
+    /**
+     * Fallback for missed hooks: two reference compares per tick
+     */
     public void tick(Minecraft client) {
-        boolean connected = (client.player != null && client.getConnection() != null);
-        String serverAddr = getServerAddress(client);
-        String realmName = getRealmName(client);
-        long currentTime = System.currentTimeMillis();
-        
-        if (connected && !realmName.isEmpty()) {
-            sessionManager.updateRealmName(realmName);
-        }
-        
-        // Join detection
-        if (!isConnected && connected && !realmName.isEmpty()) {
-            handleJoin(realmName, serverAddr, currentTime);
+        if (client.level != lastLevel || (client.level != null && client.level.dimension() != lastDimension)) {
+            onLevelChanged(client);
         }
-        // Disconnect detection
-        else if (isConnected && !connected) {
-            handleDisconnect();
+    }
+    
+    /**
+     * Level loaded or replaced (login, respawn, dimension change).
+     * Client thread.
+     */
+    public void onLevelChanged(Minecraft client) {
+        ClientLevel level = client.level;
+        if (level == null) {
+            onDisconnect(); // Left the world
+            return;
         }
-        // Realm change detection
-        else if (isConnected && connected && !realmName.isEmpty()) {
-            if (!realmName.equals(currentRealmName)) {
-                if (currentTime - lastRealmChangeTime > CHANGE_COOLDOWN) {
-                    handleRealmChange(realmName, currentTime);
-                }
-            }
+        lastLevel = level;
+        lastDimension = level.dimension();
+        
+        String realmName = getRealmName(lastDimension);
+        String serverAddr = getServerAddress(client);
+        
+        if (!isConnected || !serverAddr.equals(currentServerAddress)) {
+            handleJoin(realmName, serverAddr);
+        } else if (!realmName.equals(currentRealmName)) {
+            handleRealmChange(realmName);
         }
     }
     
-    private void handleJoin(String realmName, String serverAddr, long currentTime) {
+    /**
+     * Connection closed. Client thread.
+     */
+    public void onDisconnect() {
+        lastLevel = null;
+        lastDimension = null;
+        if (isConnected) handleDisconnect();
+    }
+    
+    private void handleJoin(String realmName, String serverAddr) {
         isConnected = true;
         currentServerAddress = serverAddr;
         currentRealmName = realmName;
-        lastRealmChangeTime = currentTime;
+        sessionManager.updateRealmName(realmName);
         
         Log.info("[RealmTracker] Joined: " + realmName);
         
         if (enableAutoLoad) {
-            configManager.loadConfig();
-            Log.info("[RealmTracker] Config loaded for realm: " + realmName);
+            configManager.setActiveContext(serverAddr, realmName);
+            Log.info("[RealmTracker] Config layers active for realm: " + realmName);
         }
     }
     
     private void handleDisconnect() {
         Log.info("[RealmTracker] Disconnected from: " + currentRealmName);
         configManager.saveConfig();
+        configManager.clearActiveContext();
         
         isConnected = false;
         currentServerAddress = "";
         currentRealmName = "";
+        sessionManager.updateRealmName(null);
     }
     
-    private void handleRealmChange(String newRealm, long currentTime) {
+    private void handleRealmChange(String newRealm) {
         Log.info("[RealmTracker] Realm changed: " + currentRealmName + " -> " + newRealm);
         
-        configManager.saveConfig();
         currentRealmName = newRealm;
-        lastRealmChangeTime = currentTime;
+        sessionManager.updateRealmName(newRealm);
         
+        // Pending session changes are realm-independent and keep their own
+        // write-behind schedule; only the server/realm layers swap here
         if (enableAutoLoad) {
-            configManager.loadConfig();
+            configManager.setActiveContext(currentServerAddress, newRealm);
         }
     }
     
@@ -110,16 +135,12 @@ public class RealmTracker {
         return "";
     }
     
-    private String getRealmName(Minecraft client) {
-        if (client.level != null && client.level.dimension() != null) {
-            String fullPath = client.level.dimension().identifier().getPath();
-            if (fullPath.contains(":")) {
-                String[] parts = fullPath.split(":");
-                return parts[parts.length - 1];
-            }
-            return fullPath;
-        }
-        return "";
+    // Only called when the dimension key changed
+    private static String getRealmName(ResourceKey<Level> dimension) {
+        if (dimension == null) return "";
+        String fullPath = dimension.identifier().getPath();
+        int colon = fullPath.lastIndexOf(':');
+        return colon >= 0 ? fullPath.substring(colon + 1) : fullPath;
     }
     
     public String getCurrentRealm() { return currentRealmName; }
@@ -14,6 +14,8 @@ package com.bapelauto.scheduler;
 import com.bapelauto.util.Log;
 
 import com.bapelauto.util.ChatUtil;
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.command.CommandQueue;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.chat.Component;
@@ -93,10 +95,8 @@ public class Scheduler {
 
         for (ScheduledTask task : new ArrayList<>(tasks)) {
             if (task.shouldExecute(currentTime)) {
-                task.execute(client);
-
                 // Remove one-time tasks after execution
-                if (task.type == TaskType.ONE_TIME) {
+                if (task.execute(client) && task.type == TaskType.ONE_TIME) {
                     tasks.remove(task);
                 }
             }
@@ -198,20 +198,16 @@ public class Scheduler {
             return currentTime >= nextExecutionTime;
         }
 
-        public void execute(Minecraft client) {
-            if (client.player == null) return;
-
-            executionCount++;
+        public boolean execute(Minecraft client) {
+            if (client.player == null) return false;
 
             // Execute action
             switch (actionType) {
                 case SEND_COMMAND:
                     if (actionData != null && !actionData.isEmpty()) {
-                        if (actionData.startsWith("/")) {
-                            client.player.connection.sendCommand(actionData.substring(1));
-                        } else {
-                            client.player.connection.sendChat(actionData);
-                        }
+                        CommandQueue queue = AutoBotMod.getCommandQueue();
+                        if (queue == null) return false;
+                        queue.enqueue(actionData, CommandQueue.Priority.NORMAL);
                     }
                     break;
 
@@ -229,6 +225,8 @@ public class Scheduler {
                     break;
             }
 
+            executionCount++;
+
             // Update next execution time
             if (type == TaskType.REPEATING || type == TaskType.INTERVAL) {
                 nextExecutionTime = System.currentTimeMillis() + interval;
@@ -237,6 +235,7 @@ public class Scheduler {
             }
 
             Log.info("[Scheduler] Executed task: " + name + " (count: " + executionCount + ")");
+            return true;
         }
 
         private void updateNextDailyExecution() {
@@ -12,6 +12,11 @@ package com.bapelauto.slimefun;
 import com.bapelauto.util.Log;
 
 import com.bapelauto.util.ChatUtil;
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.click.ClickPacer;
+import com.bapelauto.click.ContainerModel;
+import com.bapelauto.inventory.ItemFilter;
+import com.bapelauto.inventory.SlotIndex;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
@@ -31,77 +36,155 @@ import java.util.*;
 public class RecipeFeeder {
     
     /**
-     * Recipe definition for a machine
+     * Recipe definition for a machine, compiled on construction into
+     * parallel arrays sorted by slot, so the checks that run every
+     * feedDelay are primitive array passes:
+     *   slots[k]      - grid slot of requirement k
+     *   ingredient[k] - index into ingredients; requirements accepting the
+     *                   same items share one
+     *   counts[k]     - stack size needed in that slot
+     * plus totals[i], how many of ingredient i the whole grid takes.
      */
     public static class Recipe {
         private final String name;
         private final Map<Integer, ItemMatcher> slotRequirements; // slot -> required item
         private final int outputSlot;
         
+        private final int[] slots;
+        private final int[] ingredient;
+        private final int[] counts;
+        private final ItemMatcher[] ingredients;
+        private final int[] totals;
+        
         public Recipe(String name, Map<Integer, ItemMatcher> slotRequirements, int outputSlot) {
             this.name = name;
             this.slotRequirements = slotRequirements;
             this.outputSlot = outputSlot;
+            
+            int n = slotRequirements.size();
+            slots = new int[n];
+            ingredient = new int[n];
+            counts = new int[n];
+            
+            List<Integer> sorted = new ArrayList<>(slotRequirements.keySet());
+            Collections.sort(sorted);
+            Map<List<String>, Integer> ids = new HashMap<>();
+            List<ItemMatcher> distinct = new ArrayList<>();
+            for (int k = 0; k < n; k++) {
+                ItemMatcher matcher = slotRequirements.get(sorted.get(k));
+                Integer id = ids.get(matcher.getAcceptedItems());
+                if (id == null) {
+                    id = distinct.size();
+                    ids.put(matcher.getAcceptedItems(), id);
+                    distinct.add(matcher);
+                }
+                slots[k] = sorted.get(k);
+                ingredient[k] = id;
+                counts[k] = matcher.getRequiredCount();
+            }
+            ingredients = distinct.toArray(new ItemMatcher[0]);
+            totals = new int[ingredients.length];
+            for (int k = 0; k < n; k++) {
+                totals[ingredient[k]] += counts[k];
+            }
         }
         
         public String getName() { return name; }
         public Map<Integer, ItemMatcher> getSlotRequirements() { return slotRequirements; }
         public int getOutputSlot() { return outputSlot; }
         
+        public int getRequirementCount() { return slots.length; }
+        public int getSlot(int requirement) { return slots[requirement]; }
+        public int getCount(int requirement) { return counts[requirement]; }
+        public int getIngredient(int requirement) { return ingredient[requirement]; }
+        public int getIngredientCount() { return ingredients.length; }
+        public ItemMatcher getIngredientMatcher(int ingredientId) { return ingredients[ingredientId]; }
+        /** How many of this ingredient the whole recipe takes */
+        public int getIngredientTotal(int ingredientId) { return totals[ingredientId]; }
+        
         /**
          * Check if recipe is complete
          */
         public boolean isComplete(AbstractContainerMenu handler) {
-            for (Map.Entry<Integer, ItemMatcher> entry : slotRequirements.entrySet()) {
-                int slotId = entry.getKey();
-                ItemMatcher matcher = entry.getValue();
-                
-                if (slotId >= handler.slots.size()) return false;
-                
-                Slot slot = handler.getSlot(slotId);
-                if (!matcher.matches(slot.getItem())) {
-                    return false;
-                }
+            for (int k = 0; k < slots.length; k++) {
+                if (!isSatisfied(handler, k)) return false;
             }
             return true;
         }
         
         /**
-         * Get missing items for this recipe
+         * Write the requirements not yet satisfied to out (at least
+         * getRequirementCount() long) and return how many there are.
+         * Slots the menu doesn't have are skipped.
          */
-        public List<MissingItem> getMissingItems(AbstractContainerMenu handler) {
-            List<MissingItem> missing = new ArrayList<>();
-            
-            for (Map.Entry<Integer, ItemMatcher> entry : slotRequirements.entrySet()) {
-                int slotId = entry.getKey();
-                ItemMatcher matcher = entry.getValue();
-                
-                if (slotId >= handler.slots.size()) continue;
-                
-                Slot slot = handler.getSlot(slotId);
-                ItemStack currentStack = slot.getItem();
-                
-                if (!matcher.matches(currentStack)) {
-                    int needed = matcher.getRequiredCount();
-                    int current = currentStack.isEmpty() ? 0 : currentStack.getCount();
-                    missing.add(new MissingItem(slotId, matcher, needed - current));
+        public int findMissing(AbstractContainerMenu handler, int[] out) {
+            int missing = 0;
+            int size = handler.slots.size();
+            for (int k = 0; k < slots.length; k++) {
+                if (slots[k] < size && !isSatisfied(handler, k)) {
+                    out[missing++] = k;
                 }
             }
-            
             return missing;
         }
+        
+        private boolean isSatisfied(AbstractContainerMenu handler, int k) {
+            if (slots[k] >= handler.slots.size()) return false;
+            ItemStack stack = handler.getSlot(slots[k]).getItem();
+            return stack.getCount() >= counts[k] && ingredients[ingredient[k]].matchesPartial(stack);
+        }
+        
+        /**
+         * First ingredient that the grid and the given inventory slots
+         * together can't cover, or -1 if the recipe can be completed.
+         * have must be at least getIngredientCount() long.
+         */
+        public int findShortfall(AbstractContainerMenu handler, SlotIndex index, int from, int to, int[] have) {
+            Arrays.fill(have, 0, ingredients.length, 0);
+            for (int k = 0; k < slots.length; k++) {
+                if (isSatisfied(handler, k)) have[ingredient[k]] += counts[k];
+            }
+            for (int i = index.nextOccupied(from, to); i >= 0; i = index.nextOccupied(i + 1, to)) {
+                ItemStack stack = handler.getSlot(i).getItem();
+                for (int j = 0; j < ingredients.length; j++) {
+                    if (ingredients[j].matchesPartial(stack)) {
+                        have[j] += stack.getCount();
+                        break;
+                    }
+                }
+            }
+            for (int j = 0; j < ingredients.length; j++) {
+                if (have[j] < totals[j]) return j;
+            }
+            return -1;
+        }
+        
+        /**
+         * Get missing items for this recipe
+         */
+        public List<MissingItem> getMissingItems(AbstractContainerMenu handler) {
+            int[] missing = new int[slots.length];
+            int count = findMissing(handler, missing);
+            List<MissingItem> result = new ArrayList<>(count);
+            for (int m = 0; m < count; m++) {
+                int k = missing[m];
+                ItemStack current = handler.getSlot(slots[k]).getItem();
+                result.add(new MissingItem(slots[k], ingredients[ingredient[k]], counts[k] - current.getCount()));
+            }
+            return result;
+        }
     }
     
     /**
      * Item matcher for flexible recipe matching
      */
     public static class ItemMatcher {
-        private final List<String> acceptedItems; // item names or IDs
+        private final List<String> acceptedItems; // item names, IDs, prefixes or #tags
         private final int requiredCount;
+        private final ItemFilter filter; // ItemFilter.parse syntax, memoized per item
         
         public ItemMatcher(String itemName, int count) {
-            this.acceptedItems = Arrays.asList(itemName.toLowerCase());
-            this.requiredCount = count;
+            this(Arrays.asList(itemName), count);
         }
         
         public ItemMatcher(List<String> itemNames, int count) {
@@ -110,37 +193,17 @@ public class RecipeFeeder {
                 this.acceptedItems.add(name.toLowerCase());
             }
             this.requiredCount = count;
+            this.filter = ItemFilter.parse(acceptedItems);
         }
         
         public boolean matches(ItemStack stack) {
             if (stack.isEmpty()) return false;
             if (stack.getCount() < requiredCount) return false;
-            
-            String itemName = stack.getItem().getName(stack).getString().toLowerCase();
-            String itemId = stack.getItem().toString().toLowerCase();
-            
-            for (String accepted : acceptedItems) {
-                if (itemName.contains(accepted) || itemId.contains(accepted)) {
-                    return true;
-                }
-            }
-            
-            return false;
+            return filter.test(stack);
         }
         
         public boolean matchesPartial(ItemStack stack) {
-            if (stack.isEmpty()) return false;
-            
-            String itemName = stack.getItem().getName(stack).getString().toLowerCase();
-            String itemId = stack.getItem().toString().toLowerCase();
-            
-            for (String accepted : acceptedItems) {
-                if (itemName.contains(accepted) || itemId.contains(accepted)) {
-                    return true;
-                }
-            }
-            
-            return false;
+            return filter.test(stack);
         }
         
         public int getRequiredCount() { return requiredCount; }
@@ -171,11 +234,11 @@ public class RecipeFeeder {
         
         // Example: Basic Circuit Board (placeholder recipe)
         Map<Integer, ItemMatcher> circuitRecipe = new HashMap<>();
-        circuitRecipe.put(1, new ItemMatcher("copper", 1));
-        circuitRecipe.put(3, new ItemMatcher("copper", 1));
+        circuitRecipe.put(1, new ItemMatcher("copper_ingot", 1));
+        circuitRecipe.put(3, new ItemMatcher("copper_ingot", 1));
         circuitRecipe.put(4, new ItemMatcher("redstone", 1));
-        circuitRecipe.put(5, new ItemMatcher("copper", 1));
-        circuitRecipe.put(7, new ItemMatcher("copper", 1));
+        circuitRecipe.put(5, new ItemMatcher("copper_ingot", 1));
+        circuitRecipe.put(7, new ItemMatcher("copper_ingot", 1));
         PRESET_RECIPES.put("circuit_board", new Recipe("Circuit Board", circuitRecipe, 24));
     }
     
@@ -183,7 +246,14 @@ public class RecipeFeeder {
     private Recipe currentRecipe = null;
     private long lastFeedTime = 0;
     private long feedDelay = 300; // 300ms between item placements
+    // Placements pipelined per round; each builds on the predicted result of the last
+    private static final int MAX_PLACEMENTS_PER_ROUND = 4;
     private int totalItemsPlaced = 0;
+    private int[] missingBuffer = new int[0];
+    // Fill the grid with QUICK_CRAFT drags instead of slot by slot
+    private boolean dragFill = true;
+    private final RecipeFillPlanner fillPlanner = new RecipeFillPlanner();
+    private int[] haveBuffer = new int[0];
     
     private boolean autoDetectMode = true; // Try to detect and maintain recipe automatically
     
@@ -196,106 +266,123 @@ public class RecipeFeeder {
         if (client.gameMode == null || client.player == null) return;
         if (currentRecipe == null) return;
         
+        ClickPacer pacer = AutoBotMod.getClickPacer();
         long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFeedTime < feedDelay) return;
+        if (currentTime - lastFeedTime < pacer.pace(feedDelay)) return;
         
         AbstractContainerScreen<?> screen = (AbstractContainerScreen<?>) client.screen;
         AbstractContainerMenu handler = screen.getMenu();
-        
-        // Check if recipe is complete
-        if (currentRecipe.isComplete(handler)) {
-            // Recipe is ready, nothing to do
-            return;
+        if (!pacer.canSend(handler)) return;
+        
+        // Requirements not yet in the grid (none = recipe is ready)
+        Recipe recipe = currentRecipe;
+        int[] missing = buffer(recipe);
+        int missingCount = recipe.findMissing(handler, missing);
+        if (missingCount == 0) return;
+        
+        ContainerModel model = AutoBotMod.getContainerModel();
+        if (!model.begin(client, handler)) return;
+        
+        // Whole grid at once: one drag per ingredient
+        if (dragFill) {
+            int filled = fillPlanner.fill(client, handler, model, pacer,
+                AutoBotMod.getSlotIndex(), recipe, missing, missingCount);
+            if (filled > 0 || model.isRolledBack()) {
+                totalItemsPlaced += filled;
+                lastFeedTime = currentTime;
+                if (filled > 0 && client.player != null) {
+                    ChatUtil.displayClientMessage(client, 
+                        Component.literal("§a[Recipe] Filled " + filled + " slots (" + fillPlanner.getLastPackets() + " packets)"),
+                        true
+                    );
+                }
+                return;
+            }
+            // Nothing draggable (e.g. wrong items in the grid) - swap slot by slot
         }
         
-        // Get missing items
-        List<MissingItem> missingItems = currentRecipe.getMissingItems(handler);
-        
-        if (missingItems.isEmpty()) return;
-        
-        // Try to feed one missing item
-        for (MissingItem missing : missingItems) {
-            if (feedMissingItem(client, handler, missing)) {
-                lastFeedTime = currentTime;
-                return; // Feed one at a time
+        // Feed missing items, pipelined against the predicted grid
+        int placed = 0;
+        for (int m = 0; m < missingCount; m++) {
+            if (placed >= MAX_PLACEMENTS_PER_ROUND || model.isRolledBack() || !pacer.canSend(handler)) break;
+            if (feedMissingItem(client, handler, model, recipe, missing[m])) {
+                pacer.onSent(handler);
+                placed++;
             }
         }
+        if (placed > 0 || model.isRolledBack()) {
+            lastFeedTime = currentTime;
+            return;
+        }
         
         // If we get here, we couldn't feed any items (probably missing from inventory)
         if (autoDetectMode && client.player != null) {
+            int totalSlots = handler.slots.size();
+            int shortfall = recipe.findShortfall(handler, AutoBotMod.getSlotIndex().of(handler),
+                Math.max(0, totalSlots - 36), totalSlots, haveBuffer);
+            String what = shortfall >= 0
+                ? String.join("/", recipe.getIngredientMatcher(shortfall).getAcceptedItems())
+                : "required items";
             ChatUtil.displayClientMessage(client, 
-                Component.literal("§c[Recipe Feeder] Missing required items for recipe!"),
+                Component.literal("§c[Recipe Feeder] Missing " + what + " for recipe!"),
                 true
             );
         }
     }
     
+    // Scratch arrays for the active recipe, reused every tick
+    private int[] buffer(Recipe recipe) {
+        if (missingBuffer.length < recipe.getRequirementCount()) {
+            missingBuffer = new int[recipe.getRequirementCount()];
+        }
+        if (haveBuffer.length < recipe.getIngredientCount()) {
+            haveBuffer = new int[recipe.getIngredientCount()];
+        }
+        return missingBuffer;
+    }
+    
     /**
      * Feed a missing item to recipe slot
      */
-    private boolean feedMissingItem(Minecraft client, AbstractContainerMenu handler, MissingItem missing) {
-        // Get player inventory range
+    private boolean feedMissingItem(Minecraft client, AbstractContainerMenu handler, ContainerModel model,
+                                    Recipe recipe, int requirement) {
+        ItemMatcher matcher = recipe.getIngredientMatcher(recipe.getIngredient(requirement));
+        
+        // Player inventory range, non-empty slots only (shared slot index)
+        SlotIndex index = AutoBotMod.getSlotIndex().of(handler);
         int totalSlots = handler.slots.size();
         int playerStart = Math.max(0, totalSlots - 36);
         
         // Search player inventory for matching item
-        for (int i = playerStart; i < totalSlots; i++) {
-            if (i >= handler.slots.size()) break;
-            
+        for (int i = index.nextOccupied(playerStart, totalSlots); i >= 0;
+             i = index.nextOccupied(i + 1, totalSlots)) {
             Slot playerSlot = handler.getSlot(i);
-            if (!playerSlot.hasItem()) continue;
             
             ItemStack stack = playerSlot.getItem();
             
             // Check if this item matches what we need
-            if (missing.matcher.matchesPartial(stack)) {
-                // Calculate how many to take
-                int toTake = Math.min(missing.countNeeded, stack.getCount());
-                
+            if (matcher.matchesPartial(stack)) {
                 try {
-                    // Pick up items from player inventory
-                    if (toTake == stack.getCount()) {
-                        // Take all
-                        client.gameMode.handleContainerInput(
-                            handler.containerId, i, 0, ContainerInput.PICKUP, client.player
-                        );
-                    } else {
-                        // Take partial (right-click to take half, or shift-click logic)
-                        // For simplicity, take all and put back extra
-                        client.gameMode.handleContainerInput(
-                            handler.containerId, i, 0, ContainerInput.PICKUP, client.player
-                        );
-                    }
+                    // Pick up items from player inventory (all of them even
+                    // when fewer are needed; the extra goes back below)
+                    String itemName = stack.getItem().getName(stack).getString();
+                    if (!model.send(client, handler, i, 0, ContainerInput.PICKUP)) return false;
                     
-                    // Place in recipe slot
-                    int targetSlot = missing.slotId;
-                    Slot recipeSlot = handler.getSlot(targetSlot);
-                    
-                    if (recipeSlot.getItem().isEmpty()) {
-                        // Slot is empty, place item
-                        client.gameMode.handleContainerInput(
-                            handler.containerId, targetSlot, 0, ContainerInput.PICKUP, client.player
-                        );
-                    } else {
-                        // Slot has items, add to stack
-                        client.gameMode.handleContainerInput(
-                            handler.containerId, targetSlot, 0, ContainerInput.PICKUP, client.player
-                        );
-                    }
+                    // Place in recipe slot (empty or same item - PICKUP covers both)
+                    int targetSlot = recipe.getSlot(requirement);
+                    model.send(client, handler, targetSlot, 0, ContainerInput.PICKUP);
                     
-                    // Put back any remaining items
-                    if (!client.player.containerMenu.getCarried().isEmpty()) {
-                        client.gameMode.handleContainerInput(
-                            handler.containerId, i, 0, ContainerInput.PICKUP, client.player
-                        );
+                    // Put back any remaining items (predicted cursor)
+                    if (!model.getCarried(handler).isEmpty()) {
+                        model.send(client, handler, i, 0, ContainerInput.PICKUP);
                     }
+                    if (model.isRolledBack()) return false;
                     
                     totalItemsPlaced++;
                     
                     if (client.player != null) {
                         ChatUtil.displayClientMessage(client, 
-                            Component.literal("§a[Recipe] Placed " + stack.getItem().getName(stack).getString() + 
-                                       " in slot " + targetSlot),
+                            Component.literal("§a[Recipe] Placed " + itemName + " in slot " + targetSlot),
                             true
                         );
                     }
@@ -448,6 +535,9 @@ public class RecipeFeeder {
     public long getFeedDelay() { return feedDelay; }
     public void setFeedDelay(long delay) { this.feedDelay = Math.max(100, delay); }
     
+    public boolean isDragFill() { return dragFill; }
+    public void setDragFill(boolean enabled) { this.dragFill = enabled; }
+    
     public boolean isAutoDetectMode() { return autoDetectMode; }
     public void setAutoDetectMode(boolean enabled) { this.autoDetectMode = enabled; }
     
@@ -0,0 +1,190 @@
+// ============================================
+// FILE: RecipeFillPlanner.java
+// Path: src/main/java/com/bapelauto/slimefun/RecipeFillPlanner.java
+//
+// Fills every missing slot of a recipe in one burst, grouped by
+// ingredient, using QUICK_CRAFT drags instead of one pick-up / put-down /
+// put-back sequence per slot.
+//
+// Per ingredient:
+//   PICKUP a matching stack from the player inventory
+//   QUICK_CRAFT start, add each slot still short, end (one-each drag:
+//     every dragged slot gets exactly one item)
+//   ... another drag for slots that need more than one ...
+//   PICKUP back onto the source slot if anything is left on the cursor
+//
+// A nine-slot recipe like carbonado is 12 packets for the coal (pick up,
+// an eight-slot drag, put back) and 3 for the glass, sent in one tick,
+// instead of ~25 packets over nine feedDelay rounds. A round with only one
+// target slot is a plain right-click, which is what vanilla turns a
+// one-slot drag into anyway.
+//
+// Slots holding a different item are left out; the per-slot feeder swaps
+// those. Every input goes through ContainerModel, so a rollback stops the
+// burst, and each ingredient counts as one batch for ClickPacer.
+// ============================================
+package com.bapelauto.slimefun;
+
+import com.bapelauto.click.ClickPacer;
+import com.bapelauto.click.ContainerModel;
+import com.bapelauto.inventory.SlotIndex;
+import com.bapelauto.slimefun.RecipeFeeder.ItemMatcher;
+import com.bapelauto.slimefun.RecipeFeeder.Recipe;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerInput;
+import net.minecraft.world.item.ItemStack;
+
+final class RecipeFillPlanner {
+
+    // One-each drag: every dragged slot gets one item from the cursor
+    private static final int DRAG_TYPE = AbstractContainerMenu.QUICKCRAFT_TYPE_GREEDY;
+    private static final int RIGHT_BUTTON = 1;
+
+    // Scratch, reused per burst: requirement index -> items still needed
+    private int[] need = new int[0];
+    private boolean[] received = new boolean[0];
+    private int[] dragSlots = new int[0];
+
+    private int lastPackets = 0;
+
+    /**
+     * Fill the given missing requirements. Returns how many grid slots
+     * received items.
+     */
+    int fill(Minecraft client, AbstractContainerMenu handler, ContainerModel model, ClickPacer pacer,
+             SlotIndex slotIndex, Recipe recipe, int[] missing, int missingCount) {
+        int requirements = recipe.getRequirementCount();
+        if (need.length < requirements) {
+            need = new int[requirements];
+            received = new boolean[requirements];
+            dragSlots = new int[requirements];
+        }
+        lastPackets = 0;
+
+        int filled = 0;
+        for (int ingredient = 0; ingredient < recipe.getIngredientCount(); ingredient++) {
+            if (model.isRolledBack() || !pacer.canSend(handler)) break;
+
+            ItemMatcher matcher = recipe.getIngredientMatcher(ingredient);
+            int targets = 0;
+            for (int m = 0; m < missingCount; m++) {
+                int k = missing[m];
+                need[k] = 0;
+                received[k] = false;
+                if (recipe.getIngredient(k) != ingredient) continue;
+                ItemStack current = handler.getSlot(recipe.getSlot(k)).getItem();
+                if (!current.isEmpty() && !matcher.matchesPartial(current)) continue; // Wrong item - swap path
+                need[k] = recipe.getCount(k) - current.getCount();
+                if (need[k] > 0) targets++;
+            }
+            if (targets == 0) continue;
+
+            int placed = fillIngredient(client, handler, model, slotIndex, recipe, matcher, missing, missingCount);
+            if (placed > 0) {
+                pacer.onSent(handler);
+                filled += placed;
+            }
+        }
+        return filled;
+    }
+
+    private int fillIngredient(Minecraft client, AbstractContainerMenu handler, ContainerModel model,
+                               SlotIndex slotIndex, Recipe recipe, ItemMatcher matcher,
+                               int[] missing, int missingCount) {
+        int totalSlots = handler.slots.size();
+        int playerStart = Math.max(0, totalSlots - 36);
+        int touched = 0;
+
+        while (!model.isRolledBack()) {
+            // Pick up the next matching stack
+            int source = findSource(handler, slotIndex.of(handler), matcher, playerStart, totalSlots);
+            if (source < 0) break;
+            if (!send(client, handler, model, source, 0, ContainerInput.PICKUP)) break;
+            ItemStack carried = model.getCarried(handler);
+            if (carried.isEmpty()) break;
+
+            // Drag rounds until the cursor or the needs run out
+            boolean progressed = false;
+            while (!carried.isEmpty() && !model.isRolledBack()) {
+                int count = 0;
+                for (int m = 0; m < missingCount && count < carried.getCount(); m++) {
+                    int k = missing[m];
+                    if (need[k] <= 0) continue;
+                    ItemStack current = handler.getSlot(recipe.getSlot(k)).getItem();
+                    if (current.isEmpty() || ItemStack.isSameItemSameComponents(current, carried)) {
+                        dragSlots[count++] = k;
+                    }
+                }
+                if (count == 0) break;
+
+                if (!place(client, handler, model, recipe, count)) break;
+                for (int d = 0; d < count; d++) {
+                    int k = dragSlots[d];
+                    if (!received[k]) {
+                        received[k] = true;
+                        touched++;
+                    }
+                    need[k]--;
+                }
+                progressed = true;
+                carried = model.getCarried(handler);
+            }
+
+            // Leftovers go back where they came from
+            if (!model.getCarried(handler).isEmpty()) {
+                send(client, handler, model, source, 0, ContainerInput.PICKUP);
+            }
+            if (!progressed || !anyNeed(missing, missingCount)) break;
+        }
+        return touched;
+    }
+
+    // One item into each of dragSlots[0..count): a drag, or a right-click for one slot
+    private boolean place(Minecraft client, AbstractContainerMenu handler, ContainerModel model,
+                          Recipe recipe, int count) {
+        if (count == 1) {
+            return send(client, handler, model, recipe.getSlot(dragSlots[0]), RIGHT_BUTTON, ContainerInput.PICKUP);
+        }
+        int outside = AbstractContainerMenu.SLOT_CLICKED_OUTSIDE;
+        if (!send(client, handler, model, outside,
+                AbstractContainerMenu.getQuickcraftMask(AbstractContainerMenu.QUICKCRAFT_HEADER_START, DRAG_TYPE),
+                ContainerInput.QUICK_CRAFT)) {
+            return false;
+        }
+        int add = AbstractContainerMenu.getQuickcraftMask(AbstractContainerMenu.QUICKCRAFT_HEADER_CONTINUE, DRAG_TYPE);
+        for (int d = 0; d < count; d++) {
+            if (!send(client, handler, model, recipe.getSlot(dragSlots[d]), add, ContainerInput.QUICK_CRAFT)) {
+                return false; // Rolled back mid-drag - the server resets it with the menu
+            }
+        }
+        return send(client, handler, model, outside,
+            AbstractContainerMenu.getQuickcraftMask(AbstractContainerMenu.QUICKCRAFT_HEADER_END, DRAG_TYPE),
+            ContainerInput.QUICK_CRAFT);
+    }
+
+    private boolean send(Minecraft client, AbstractContainerMenu handler, ContainerModel model,
+                         int slot, int button, ContainerInput input) {
+        if (!model.send(client, handler, slot, button, input)) return false;
+        lastPackets++;
+        return true;
+    }
+
+    private static int findSource(AbstractContainerMenu handler, SlotIndex index, ItemMatcher matcher, int from, int to) {
+        for (int i = index.nextOccupied(from, to); i >= 0; i = index.nextOccupied(i + 1, to)) {
+            if (matcher.matchesPartial(handler.getSlot(i).getItem())) return i;
+        }
+        return -1;
+    }
+
+    private boolean anyNeed(int[] missing, int missingCount) {
+        for (int m = 0; m < missingCount; m++) {
+            if (need[missing[m]] > 0) return true;
+        }
+        return false;
+    }
+
+    /** Packets sent by the last fill() */
+    int getLastPackets() { return lastPackets; }
+}
@@ -296,6 +296,19 @@ public class SlimefunConfigScreen extends Screen {
                     b.setMessage(Component.literal("§7⏱ " + next + "ms"));
                 }
             ).bounds(cx + 55, startY, 95, 24).build());
+            
+            // Drag fill: whole recipe in one burst vs one slot per round
+            startY += 30;
+            this.addRenderableWidget(Button.builder(
+                Component.literal(slimefunManager.getRecipeFeeder().isDragFill() ?
+                    "§a✓ Drag Fill: ON" : "§7○ Drag Fill: OFF"),
+                b -> {
+                    RecipeFeeder feeder = slimefunManager.getRecipeFeeder();
+                    feeder.setDragFill(!feeder.isDragFill());
+                    b.setMessage(Component.literal(feeder.isDragFill() ?
+                        "§a✓ Drag Fill: ON" : "§7○ Drag Fill: OFF"));
+                }
+            ).bounds(cx - 150, startY, 200, 24).build());
         }
         
         startY += 35;
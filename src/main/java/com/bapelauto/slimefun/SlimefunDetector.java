@@ -112,7 +112,15 @@ public class SlimefunDetector {
     public static boolean isSlimefunGUI(Screen screen) {
         if (!(screen instanceof AbstractContainerScreen)) return false;
         
-        String title = screen.getTitle().getString().toLowerCase();
+        return isSlimefunTitle(screen.getTitle().getString()) ||
+               detectBySlotPattern((AbstractContainerScreen<?>) screen);
+    }
+    
+    /**
+     * Title-only part of {@link #isSlimefunGUI(Screen)}
+     */
+    public static boolean isSlimefunTitle(String rawTitle) {
+        String title = rawTitle.toLowerCase();
         
         // Check for common Slimefun indicators
         return title.contains("slimefun") || 
@@ -123,8 +131,7 @@ public class SlimefunDetector {
                title.contains("generator") ||
                title.contains("machine") ||
                title.contains("cargo") ||
-               title.contains("android") ||
-               detectBySlotPattern((AbstractContainerScreen<?>) screen);
+               title.contains("android");
     }
     
     /**
@@ -133,7 +140,18 @@ public class SlimefunDetector {
     public static SlimefunMachine detectMachineType(Screen screen) {
         if (!(screen instanceof AbstractContainerScreen)) return SlimefunMachine.UNKNOWN;
         
-        String title = screen.getTitle().getString().toLowerCase();
+        SlimefunMachine byTitle = detectMachineType(screen.getTitle().getString());
+        if (byTitle == SlimefunMachine.UNKNOWN && detectBySlotPattern((AbstractContainerScreen<?>) screen)) {
+            return SlimefunMachine.GENERIC_MACHINE;
+        }
+        return byTitle;
+    }
+    
+    /**
+     * Title-only part of {@link #detectMachineType(Screen)} (no slot-pattern fallback)
+     */
+    public static SlimefunMachine detectMachineType(String rawTitle) {
+        String title = rawTitle.toLowerCase();
         
         // Enhanced Crafting Table variants
         if (title.contains("enhanced crafting")) return SlimefunMachine.ENHANCED_CRAFTING_TABLE;
@@ -192,7 +210,7 @@ public class SlimefunDetector {
         if (title.contains("android")) return SlimefunMachine.ANDROID_INTERFACE;
         
         // Generic Slimefun check
-        if (isSlimefunGUI(screen)) return SlimefunMachine.GENERIC_MACHINE;
+        if (isSlimefunTitle(rawTitle)) return SlimefunMachine.GENERIC_MACHINE;
         
         return SlimefunMachine.UNKNOWN;
     }
@@ -24,6 +24,11 @@ package com.bapelauto.slimefun;
 import com.bapelauto.util.Log;
 
 import com.bapelauto.util.ChatUtil;
+import com.bapelauto.AutoBotMod;
+import com.bapelauto.click.ClickPacer;
+import com.bapelauto.click.ContainerModel;
+import com.bapelauto.inventory.ItemFilter;
+import com.bapelauto.inventory.SlotIndex;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
@@ -46,6 +51,8 @@ public class SlimefunInputFeeder {
 
     // Item requirements for specific machines
     private static final Map<SlimefunDetector.SlimefunMachine, List<String>> REQUIRED_ITEMS = new HashMap<>();
+    // The same requirements as item filters, so scans don't re-match strings
+    private static final Map<SlimefunDetector.SlimefunMachine, ItemFilter> REQUIRED_FILTERS = new HashMap<>();
 
     static {
         // Define input slots for each machine type
@@ -65,11 +72,14 @@ public class SlimefunInputFeeder {
             Arrays.asList("coal", "charcoal", "coal_block"));
         REQUIRED_ITEMS.put(SlimefunDetector.SlimefunMachine.BIO_REACTOR,
             Arrays.asList("wheat", "carrot", "potato", "beetroot", "melon", "pumpkin"));
+        REQUIRED_ITEMS.forEach((machine, items) -> REQUIRED_FILTERS.put(machine, ItemFilter.containing(items)));
     }
 
     private boolean enabled = false;
     private long lastFeedTime = 0;
     private long feedDelay = 500; // 500ms between feeds
+    // Feeds pipelined per round; each builds on the predicted result of the last
+    private static final int MAX_FEEDS_PER_ROUND = 4;
     private int totalItemsFed = 0;
 
     private SlimefunDetector.SlimefunMachine currentMachine = SlimefunDetector.SlimefunMachine.UNKNOWN;
@@ -82,52 +92,60 @@ public class SlimefunInputFeeder {
         if (client.screen == null || !(client.screen instanceof AbstractContainerScreen)) return;
         if (client.gameMode == null || client.player == null) return;
 
+        ClickPacer pacer = AutoBotMod.getClickPacer();
         long currentTime = System.currentTimeMillis();
-        if (currentTime - lastFeedTime < feedDelay) return;
+        if (currentTime - lastFeedTime < pacer.pace(feedDelay)) return;
 
         currentMachine = machine;
 
         AbstractContainerScreen<?> screen = (AbstractContainerScreen<?>) client.screen;
         AbstractContainerMenu handler = screen.getMenu();
+        if (!pacer.canSend(handler)) return;
 
         // Check if input slots need items
         int[] inputSlots = INPUT_SLOTS.get(machine);
         if (inputSlots == null) return;
 
-        // Find empty input slots
+        ContainerModel model = AutoBotMod.getContainerModel();
+        if (!model.begin(client, handler)) return;
+
+        // Find empty input slots - the menu already shows the predicted
+        // result of earlier feeds this round
+        int fed = 0;
         for (int inputSlot : inputSlots) {
+            if (fed >= MAX_FEEDS_PER_ROUND || model.isRolledBack() || !pacer.canSend(handler)) break;
             if (inputSlot >= handler.slots.size()) continue;
 
             Slot slot = handler.getSlot(inputSlot);
             if (!slot.hasItem() || slot.getItem().getCount() < slot.getItem().getMaxStackSize() - 10) {
                 // Slot is empty or low, try to feed it
-                if (feedItemToSlot(client, handler, inputSlot, machine)) {
-                    lastFeedTime = currentTime;
-                    return; // Feed one item at a time
+                if (feedItemToSlot(client, handler, model, inputSlot, machine)) {
+                    pacer.onSent(handler);
+                    fed++;
                 }
             }
         }
+        if (fed > 0) lastFeedTime = currentTime;
     }
 
     /**
      * Feed an appropriate item from player inventory to machine input slot
      */
-    private boolean feedItemToSlot(Minecraft client, AbstractContainerMenu handler,
+    private boolean feedItemToSlot(Minecraft client, AbstractContainerMenu handler, ContainerModel model,
                                     int targetSlot, SlimefunDetector.SlimefunMachine machine) {
 
-        // Get player inventory range
+        // Player inventory range, non-empty slots only (shared slot index)
+        SlotIndex index = AutoBotMod.getSlotIndex().of(handler);
         int totalSlots = handler.slots.size();
         int playerStart = Math.max(0, totalSlots - 36);
 
         // Get required items for this machine
-        List<String> requiredItems = REQUIRED_ITEMS.get(machine);
+        ItemFilter requiredItems = REQUIRED_FILTERS.get(machine);
 
         // Search player inventory for suitable items
-        for (int i = playerStart; i < totalSlots; i++) {
-            if (i >= handler.slots.size()) break;
-
+        for (int i = index.nextOccupied(playerStart, totalSlots); i >= 0;
+             i = index.nextOccupied(i + 1, totalSlots)) {
             Slot playerSlot = handler.getSlot(i);
-            if (!playerSlot.hasItem()) continue;
 
             ItemStack stack = playerSlot.getItem();
 
@@ -135,28 +153,25 @@ public class SlimefunInputFeeder {
             if (isSuitableItem(stack, machine, requiredItems)) {
                 // Move item to input slot
                 try {
-                    // Pick up item from player inventory
-                    client.gameMode.handleContainerInput(
-                        handler.containerId, i, 0, ContainerInput.PICKUP, client.player
-                    );
+                    // Pick up item from player inventory (name first - the
+                    // stack object empties once it is placed)
+                    String itemName = stack.getItem().getName(stack).getString();
+                    if (!model.send(client, handler, i, 0, ContainerInput.PICKUP)) return false;
 
                     // Place in machine input slot
-                    client.gameMode.handleContainerInput(
-                        handler.containerId, targetSlot, 0, ContainerInput.PICKUP, client.player
-                    );
-
-                    // If still holding items, put them back
-                    if (!client.player.containerMenu.getCarried().isEmpty()) {
-                        client.gameMode.handleContainerInput(
-                            handler.containerId, i, 0, ContainerInput.PICKUP, client.player
-                        );
+                    model.send(client, handler, targetSlot, 0, ContainerInput.PICKUP);
+
+                    // If still holding items (predicted), put them back
+                    if (!model.getCarried(handler).isEmpty()) {
+                        model.send(client, handler, i, 0, ContainerInput.PICKUP);
                     }
+                    if (model.isRolledBack()) return false;
 
                     totalItemsFed++;
 
                     if (client.player != null) {
                         ChatUtil.displayClientMessage(client, 
-                            Component.literal("§a[Auto-Input] Fed " + stack.getItem().getName(stack).getString() +
+                            Component.literal("§a[Auto-Input] Fed " + itemName +
                                        " to " + machine.getDisplayName()),
                             true
                         );
@@ -177,25 +192,16 @@ public class SlimefunInputFeeder {
      * Check if item is suitable for this machine
      */
     private boolean isSuitableItem(ItemStack stack, SlimefunDetector.SlimefunMachine machine,
-                                    List<String> requiredItems) {
+                                    ItemFilter requiredItems) {
         if (stack.isEmpty()) return false;
 
-        String itemName = stack.getItem().getName(stack).getString().toLowerCase();
-        String itemId = stack.getItem().toString().toLowerCase();
-
         // If no specific requirements, accept any item
         if (requiredItems == null || requiredItems.isEmpty()) {
             return true;
         }
 
-        // Check against required items list
-        for (String required : requiredItems) {
-            if (itemName.contains(required) || itemId.contains(required)) {
-                return true;
-            }
-        }
-
-        return false;
+        // Check against required items (name or id fragments)
+        return requiredItems.test(stack);
     }
 
     /**
@@ -247,7 +253,11 @@ public class SlimefunInputFeeder {
      * Add custom item requirement
      */
     public void addRequiredItem(SlimefunDetector.SlimefunMachine machine, String itemName) {
-        REQUIRED_ITEMS.computeIfAbsent(machine, k -> new ArrayList<>()).add(itemName.toLowerCase());
+        // Built-in lists are fixed-size Arrays.asList views
+        List<String> items = new ArrayList<>(REQUIRED_ITEMS.getOrDefault(machine, List.of()));
+        items.add(itemName.toLowerCase());
+        REQUIRED_ITEMS.put(machine, items);
+        REQUIRED_FILTERS.put(machine, ItemFilter.containing(items));
     }
 
     /**
@@ -297,7 +297,7 @@ public class SlimefunProfilePresets {
         
         // Apply all config values
         Map<String, String> config = preset.getConfig();
-        config.forEach(configManager::set);
+        configManager.setAll(config);
         
         // Apply timing pattern
         String patternStr = config.get("timingPattern");
@@ -115,7 +115,8 @@ public class VisualOverlay {
 
         String[] stats = {
             "§7World: §f" + worldManager.getTotalClicks(),
-            "§7GUI: §f" + guiClickManager.getTotalClicks(),
+            "§7GUI: §f" + guiClickManager.getTotalClicks()
+                + (guiClickManager.isActive() ? String.format(" §7(%.1f/%.1f cps)", guiClickManager.getAchievedCps(), guiClickManager.getTargetCps()) : ""),
             "§7Items: §f" + inventoryManager.getTotalItemsMoved(),
             "§7Cmds: §f" + statsTracker.getTotalCommands(),
             "§7Time: §f" + statsTracker.getFormattedDuration()
@@ -25,6 +25,12 @@ public class WorldInteractionManager {
     
     private int totalClicks = 0;
     
+    private ShardedConfigManager boundConfig;
+    private ShardedConfigManager.BooleanKey leftClickKey;
+    private ShardedConfigManager.BooleanKey rightClickKey;
+    private ShardedConfigManager.LongKey leftDelayKey;
+    private ShardedConfigManager.LongKey rightDelayKey;
+    
     public void tick(Minecraft client) {
         if (client.player == null || client.level == null) return;
         
@@ -83,18 +89,29 @@ public class WorldInteractionManager {
         rightClickEnabled = false;
     }
     
+    private void bindConfig(ShardedConfigManager config) {
+        if (boundConfig == config) return;
+        boundConfig = config;
+        leftClickKey = config.booleanKey("leftClickEnabled", false, v -> leftClickEnabled = v);
+        rightClickKey = config.booleanKey("rightClickEnabled", false, v -> rightClickEnabled = v);
+        leftDelayKey = config.longKey("leftClickDelay", 200, v -> leftClickDelay = v);
+        rightDelayKey = config.longKey("rightClickDelay", 200, v -> rightClickDelay = v);
+    }
+    
     public void loadFromConfig(ShardedConfigManager config) {
-        leftClickEnabled = config.getBoolean("leftClickEnabled", false);
-        rightClickEnabled = config.getBoolean("rightClickEnabled", false);
-        leftClickDelay = config.getLong("leftClickDelay", 200);
-        rightClickDelay = config.getLong("rightClickDelay", 200);
+        bindConfig(config);
+        leftClickEnabled = leftClickKey.get();
+        rightClickEnabled = rightClickKey.get();
+        leftClickDelay = leftDelayKey.get();
+        rightClickDelay = rightDelayKey.get();
     }
     
     public void saveToConfig(ShardedConfigManager config) {
-        config.set("leftClickEnabled", leftClickEnabled);
-        config.set("rightClickEnabled", rightClickEnabled);
-        config.set("leftClickDelay", leftClickDelay);
-        config.set("rightClickDelay", rightClickDelay);
+        bindConfig(config);
+        leftClickKey.set(leftClickEnabled);
+        rightClickKey.set(rightClickEnabled);
+        leftDelayKey.set(leftClickDelay);
+        rightDelayKey.set(rightClickDelay);
     }
     
     // Getters and setters